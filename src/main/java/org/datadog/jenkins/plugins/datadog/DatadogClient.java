@@ -89,8 +89,19 @@ public interface DatadogClient {
      */
     public void incrementCounter(String name, String hostname, Map<String, Set<String>> tags);
 
+    /**
+     * Increment a counter by a given value, see {@link #incrementCounter(String, String, Map)}.
+     *
+     * @param name - metric name
+     * @param value - the value to add to the counter
+     * @param hostname - metric hostname
+     * @param tags - metric tags
+     */
+    public void incrementCounter(String name, long value, String hostname, Map<String, Set<String>> tags);
+
     /**
      * Submit all your counters as rate with 10 seconds intervals.
+     * Clients that buffer metric points also send them when this method is executed.
      */
     public void flushCounters();
 
@@ -101,10 +112,24 @@ public interface DatadogClient {
      * @param value    - A long containing the value to submit.
      * @param hostname - A String with the hostname to submit.
      * @param tags     - A Map containing the tags to submit.
-     * @return a boolean to signify the success or failure of the HTTP POST request.
+     * @return a boolean to signify the success or failure of the submission. Buffered points are
+     * considered successfully submitted.
      */
     public boolean gauge(String name, long value, String hostname, Map<String, Set<String>> tags);
 
+    /**
+     * Adds a value to the distribution of a metric, e.g. a duration. Values are aggregated in a sketch
+     * per metric, tags and hostname, so that quantiles can be computed whatever the submission rate.
+     * NOTE: Distributions are submitted when the flushCounters method is executed.
+     *
+     * @param name     - A String with the name of the metric to record.
+     * @param value    - A double containing the value to add.
+     * @param hostname - A String with the hostname to submit.
+     * @param tags     - A Map containing the tags to submit.
+     * @return a boolean to signify the success or failure of the submission.
+     */
+    public boolean distribution(String name, double value, String hostname, Map<String, Set<String>> tags);
+
     /**
      * Sends a service check to the Datadog API, including the check name, and status.
      *
@@ -0,0 +1,165 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog;
+
+import hudson.util.Secret;
+import org.datadog.jenkins.plugins.datadog.util.GlobalTagRules;
+import org.datadog.jenkins.plugins.datadog.util.JobMatcher;
+
+import java.util.logging.Logger;
+
+/**
+ * An immutable view of the {@link DatadogGlobalConfiguration}, holding every setting in its parsed and
+ * compiled form. A new snapshot is published by the global configuration whenever it is loaded or saved,
+ * so readers always see a consistent configuration without looking up the descriptor.
+ */
+public final class DatadogConfigSnapshot {
+
+    private static final Logger logger = Logger.getLogger(DatadogConfigSnapshot.class.getName());
+
+    private static volatile DatadogConfigSnapshot current;
+
+    private final DatadogClient.ClientType clientType;
+    private final String targetApiURL;
+    private final Secret targetApiKey;
+    private final String targetHost;
+    private final Integer targetPort;
+    private final String targetSocketPath;
+    private final String hostname;
+    private final String globalTagFile;
+    private final JobMatcher jobMatcher;
+    private final GlobalTagRules globalTagRules;
+    private final boolean emitSecurityEvents;
+    private final boolean emitSystemEvents;
+
+    DatadogConfigSnapshot(DatadogGlobalConfiguration configuration) {
+        this.clientType = parseClientType(configuration.getReportWith());
+        this.targetApiURL = configuration.getTargetApiURL();
+        this.targetApiKey = configuration.getTargetApiKey();
+        this.targetHost = configuration.getTargetHost();
+        this.targetPort = configuration.getTargetPort();
+        this.targetSocketPath = configuration.getTargetSocketPath();
+        this.hostname = configuration.getHostname();
+        this.globalTagFile = configuration.getGlobalTagFile();
+        this.jobMatcher = JobMatcher.forConfiguration(configuration.getBlacklist(), configuration.getWhitelist());
+        this.globalTagRules = GlobalTagRules.forConfiguration(configuration.getGlobalTags(),
+                configuration.getGlobalJobTags());
+        this.emitSecurityEvents = configuration.isEmitSecurityEvents();
+        this.emitSystemEvents = configuration.isEmitSystemEvents();
+    }
+
+    /**
+     * @return the snapshot of the current global configuration, null if Jenkins is not running.
+     */
+    public static DatadogConfigSnapshot get() {
+        DatadogConfigSnapshot snapshot = current;
+        if (snapshot == null) {
+            // The global configuration publishes its snapshot when it is created
+            DatadogGlobalConfiguration configuration = DatadogUtilities.getDatadogGlobalDescriptor();
+            snapshot = current;
+            if (snapshot == null && configuration != null) {
+                snapshot = publish(configuration);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Replaces the current snapshot with one built from the given configuration.
+     *
+     * @param configuration - The global configuration
+     * @return the published snapshot.
+     */
+    static DatadogConfigSnapshot publish(DatadogGlobalConfiguration configuration) {
+        DatadogConfigSnapshot snapshot = new DatadogConfigSnapshot(configuration);
+        current = snapshot;
+        return snapshot;
+    }
+
+    private static DatadogClient.ClientType parseClientType(String reportWith) {
+        try {
+            return DatadogClient.ClientType.valueOf(reportWith);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            logger.warning("Invalid reportWith value '" + reportWith + "', reporting with "
+                    + DatadogClient.ClientType.HTTP.name());
+            return DatadogClient.ClientType.HTTP;
+        }
+    }
+
+    public DatadogClient.ClientType getClientType() {
+        return clientType;
+    }
+
+    public String getTargetApiURL() {
+        return targetApiURL;
+    }
+
+    public Secret getTargetApiKey() {
+        return targetApiKey;
+    }
+
+    public String getTargetHost() {
+        return targetHost;
+    }
+
+    public Integer getTargetPort() {
+        return targetPort;
+    }
+
+    public String getTargetSocketPath() {
+        return targetSocketPath;
+    }
+
+    public String getHostname() {
+        return hostname;
+    }
+
+    public String getGlobalTagFile() {
+        return globalTagFile;
+    }
+
+    /**
+     * @return the compiled blacklist and whitelist.
+     */
+    public JobMatcher getJobMatcher() {
+        return jobMatcher;
+    }
+
+    /**
+     * @return the compiled global tags and global job tags.
+     */
+    public GlobalTagRules getGlobalTagRules() {
+        return globalTagRules;
+    }
+
+    public boolean isEmitSecurityEvents() {
+        return emitSecurityEvents;
+    }
+
+    public boolean isEmitSystemEvents() {
+        return emitSystemEvents;
+    }
+}
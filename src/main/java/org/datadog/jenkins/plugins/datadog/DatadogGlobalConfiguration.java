@@ -34,6 +34,7 @@ import net.sf.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
 import org.datadog.jenkins.plugins.datadog.clients.ClientFactory;
 import org.datadog.jenkins.plugins.datadog.clients.DatadogHttpClient;
+import org.datadog.jenkins.plugins.datadog.util.HostnameResolver;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
@@ -56,6 +57,7 @@ public class DatadogGlobalConfiguration extends GlobalConfiguration {
     private static String TARGET_API_KEY_PROPERTY = "DATADOG_JENKINS_PLUGIN_TARGET_API_KEY";
     private static String TARGET_HOST_PROPERTY = "DATADOG_JENKINS_PLUGIN_TARGET_HOST";
     private static String TARGET_PORT_PROPERTY = "DATADOG_JENKINS_PLUGIN_TARGET_PORT";
+    private static String TARGET_SOCKET_PATH_PROPERTY = "DATADOG_JENKINS_PLUGIN_TARGET_SOCKET_PATH";
     private static String HOSTNAME_PROPERTY = "DATADOG_JENKINS_PLUGIN_HOSTNAME";
     private static String BLACKLIST_PROPERTY = "DATADOG_JENKINS_PLUGIN_BLACKLIST";
     private static String WHITELIST_PROPERTY = "DATADOG_JENKINS_PLUGIN_WHITELIST";
@@ -77,6 +79,7 @@ public class DatadogGlobalConfiguration extends GlobalConfiguration {
     private Secret targetApiKey = null;
     private String targetHost = DEFAULT_TARGET_HOST_VALUE;
     private Integer targetPort = DEFAULT_TARGET_PORT_VALUE;
+    private String targetSocketPath = null;
     private String hostname = null;
     private String blacklist = null;
     private String whitelist = null;
@@ -90,6 +93,20 @@ public class DatadogGlobalConfiguration extends GlobalConfiguration {
     public DatadogGlobalConfiguration() {
         load(); // load the persisted global configuration
         loadEnvVariables(); // load environment variables
+        DatadogConfigSnapshot.publish(this);
+    }
+
+    @Override
+    public synchronized void load() {
+        super.load();
+        DatadogConfigSnapshot.publish(this);
+    }
+
+    @Override
+    public synchronized void save() {
+        // Publish the whole configuration at once, readers never see it partially applied
+        DatadogConfigSnapshot.publish(this);
+        super.save();
     }
 
     private void loadEnvVariables(){
@@ -120,6 +137,11 @@ public class DatadogGlobalConfiguration extends GlobalConfiguration {
             this.targetPort = Integer.valueOf(targetPortEnvVar);
         }
 
+        String targetSocketPathEnvVar = System.getenv(TARGET_SOCKET_PATH_PROPERTY);
+        if(StringUtils.isNotBlank(targetSocketPathEnvVar) && this.targetSocketPath == null) {
+            this.targetSocketPath = targetSocketPathEnvVar;
+        }
+
         String hostnameEnvVar = System.getenv(HOSTNAME_PROPERTY);
         if(StringUtils.isNotBlank(hostnameEnvVar) && this.hostname == null) {
             this.hostname = hostnameEnvVar;
@@ -273,6 +295,7 @@ public class DatadogGlobalConfiguration extends GlobalConfiguration {
             this.setTargetApiKey(formData.getString("targetApiKey"));
             this.setTargetHost(formData.getString("targetHost"));
             this.setTargetPort(formData.getInt("targetPort"));
+            this.setTargetSocketPath(formData.getString("targetSocketPath"));
             this.setHostname(formData.getString("hostname"));
             this.setBlacklist(formData.getString("blacklist"));
             this.setWhitelist(formData.getString("whitelist"));
@@ -285,9 +308,11 @@ public class DatadogGlobalConfiguration extends GlobalConfiguration {
             // Persist global configuration information
             save();
 
+            // The hostname may be resolved differently, e.g. if it's no longer set in the configuration
+            HostnameResolver.invalidate();
+
             //When form is saved...reinitialize the DatadogClient.
-            ClientFactory.getClient(DatadogClient.ClientType.valueOf(this.getReportWith()),
-                    this.getTargetApiURL(), this.getTargetApiKey(), this.getTargetHost(), this.getTargetPort());
+            ClientFactory.getClient();
 
         } catch(Exception e){
             logger.warning("Unexpected exception occurred - " + e.getMessage());
@@ -395,6 +420,26 @@ public class DatadogGlobalConfiguration extends GlobalConfiguration {
         this.targetPort = targetPort;
     }
 
+    /**
+     * Getter function for the targetSocketPath global configuration.
+     *
+     * @return a String containing the targetSocketPath global configuration.
+     */
+    public String getTargetSocketPath() {
+        return targetSocketPath;
+    }
+
+    /**
+     * Setter function for the targetSocketPath global configuration.
+     *
+     * @param targetSocketPath = A string containing the path of the DogStatsD Unix domain socket.
+     *                         When set, it is used instead of the DogStatsD Host and Port.
+     */
+    @DataBoundSetter
+    public void setTargetSocketPath(String targetSocketPath) {
+        this.targetSocketPath = fixEmptyAndTrim(targetSocketPath);
+    }
+
     /**
      * Getter function for the hostname global configuration.
      *
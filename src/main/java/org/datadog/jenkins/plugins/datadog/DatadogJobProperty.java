@@ -26,8 +26,8 @@ THE SOFTWARE.
 package org.datadog.jenkins.plugins.datadog;
 
 import hudson.Extension;
-import hudson.FilePath;
 import hudson.model.*;
+import org.datadog.jenkins.plugins.datadog.util.TagFileCache;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
@@ -150,24 +150,11 @@ public class DatadogJobProperty<T extends Job<?, ?>> extends JobProperty<T> {
      *
      * @param r - Current build
      * @return - A String containing the contents of the scanned file. Returns null when
-     * the file cannot be found.
+     * the file cannot be found. The file is only transferred again when it changed.
      */
     public String readTagFile(Run r) {
-        String s = null;
-        try {
-            //We need to make sure that the workspace has been created. When 'onStarted' is
-            //invoked, the workspace has not yet been established, so this check is necessary.
-            FilePath workspace = r.getExecutor().getCurrentWorkspace();
-            if (workspace != null && getTagFile() != null) {
-                FilePath path = new FilePath(workspace, getTagFile());
-                if (path.exists()) {
-                    s = path.readToString();
-                }
-            }
-        } catch (IOException | InterruptedException | NullPointerException ex) {
-            logger.severe(ex.getMessage());
-        }
-        return s;
+        TagFileCache.TagFile tagFile = TagFileCache.read(r, getTagFile());
+        return tagFile == null ? null : tagFile.getContent();
     }
 
     @Extension
@@ -31,15 +31,12 @@ import hudson.XmlFile;
 import hudson.model.*;
 import hudson.model.labels.LabelAtom;
 import jenkins.model.Jenkins;
+import org.datadog.jenkins.plugins.datadog.util.HostnameResolver;
+import org.datadog.jenkins.plugins.datadog.util.TagFileCache;
 import org.datadog.jenkins.plugins.datadog.util.TagsUtil;
 
 import javax.annotation.Nonnull;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.Inet4Address;
-import java.net.UnknownHostException;
 import java.util.*;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -50,6 +47,12 @@ public class DatadogUtilities {
     private static final Logger logger = Logger.getLogger(DatadogUtilities.class.getName());
 
     private static final Integer MAX_HOSTNAME_LEN = 255;
+    private static final Set<String> LOCAL_HOSTS = new HashSet<>(Arrays.asList("localhost", "localhost.localdomain",
+            "localhost6.localdomain6", "ip6-localhost"));
+    private static final Pattern VALID_HOSTNAME_RFC_1123_PATTERN = Pattern.compile("^(([a-zA-Z0-9]|"
+            + "[a-zA-Z0-9][a-zA-Z0-9\\-]*[a-zA-Z0-9])\\.)*"
+            + "([A-Za-z0-9]|"
+            + "[A-Za-z0-9][A-Za-z0-9\\-]*[A-Za-z0-9])$");
 
     /**
      * @return - The descriptor for the Datadog plugin. In this case the global configuration.
@@ -62,6 +65,14 @@ public class DatadogUtilities {
         return ExtensionList.lookup(DatadogGlobalConfiguration.class).get(DatadogGlobalConfiguration.class);
     }
 
+    /**
+     * @return - The snapshot of the global configuration, which is cheaper to read than the descriptor
+     * and always consistent. Null if Jenkins is not running.
+     */
+    public static DatadogConfigSnapshot getDatadogConfig() {
+        return DatadogConfigSnapshot.get();
+    }
+
     /**
      * @param r - Current build.
      * @return - The configured {@link DatadogJobProperty}. Null if not there
@@ -80,26 +91,26 @@ public class DatadogUtilities {
     public static Map<String, Set<String>> getBuildTags(Run run, @Nonnull TaskListener listener) {
         Map<String, Set<String>> result = new HashMap<>();
         String jobName = run.getParent().getFullName();
-        final String globalJobTags = getDatadogGlobalDescriptor().getGlobalJobTags();
+        final DatadogConfigSnapshot config = getDatadogConfig();
         final DatadogJobProperty property = DatadogUtilities.getDatadogJobProperties(run);
-        String workspaceTagFile = property.readTagFile(run);
+        TagFileCache.TagFile workspaceTagFile = TagFileCache.read(run, property == null ? null : property.getTagFile());
         // If job doesn't have a workspace Tag File set we check if one has been defined globally
         if(workspaceTagFile == null){
-            workspaceTagFile = getDatadogGlobalDescriptor().getGlobalTagFile();
+            workspaceTagFile = TagFileCache.read(run, config.getGlobalTagFile());
         }
         try {
             final EnvVars envVars = run.getEnvironment(listener);
             if (workspaceTagFile != null) {
-                result = TagsUtil.merge(result, computeTagListFromVarList(envVars, workspaceTagFile));
+                result = TagsUtil.merge(result, computeTagList(envVars, workspaceTagFile.getTags()));
             }
 
-            String prop = property.getTagProperties();
+            String prop = property == null ? null : property.getTagProperties();
             result = TagsUtil.merge(result, computeTagListFromVarList(envVars, prop));
         } catch (IOException | InterruptedException ex) {
             logger.severe(ex.getMessage());
         }
 
-        result = TagsUtil.merge(result, getTagsFromGlobalJobTags(jobName, globalJobTags));
+        result = TagsUtil.merge(result, config.getGlobalTagRules().getJobTags(jobName));
         return result;
     }
 
@@ -110,151 +121,17 @@ public class DatadogUtilities {
      * @return a boolean to signify if the jobName is or is not blacklisted or whitelisted.
      */
     public static boolean isJobTracked(final String jobName) {
-        return !isJobBlacklisted(jobName) && isJobWhitelisted(jobName);
-    }
-
-    /**
-     * Human-friendly OS name. Commons return values are windows, linux, mac, sunos, freebsd
-     *
-     * @return a String with a human-friendly OS name
-     */
-    private static String getOS() {
-        String out = System.getProperty("os.name");
-        String os = out.split(" ")[0];
-        return os.toLowerCase();
-    }
-
-    /**
-     * Retrieve the list of tags from the globalJobTagsLines param for jobName
-     *
-     * @param jobName - JobName to retrieve and process tags from.
-     * @param globalJobTags - globalJobTags string
-     * @return - A Map of values containing the key and values of each Datadog tag to apply to the metric/event
-     */
-    private static Map<String, Set<String>> getTagsFromGlobalJobTags(String jobName, final String globalJobTags) {
-        Map<String, Set<String>> tags = new HashMap<>();
-        List<String> globalJobTagsLines = linesToList(globalJobTags);
-        logger.fine(String.format("The list of Global Job Tags are: %s", globalJobTagsLines));
-
-        // Each jobInfo is a list containing one regex, and a variable number of tags
-        for (String globalTagsLine : globalJobTagsLines) {
-            List<String> jobInfo = cstrToList(globalTagsLine);
-            if (jobInfo.isEmpty()) {
-                continue;
-            }
-            Pattern jobNamePattern = Pattern.compile(jobInfo.get(0));
-            Matcher jobNameMatcher = jobNamePattern.matcher(jobName);
-            if (jobNameMatcher.matches()) {
-                for (int i = 1; i < jobInfo.size(); i++) {
-                    String[] tagItem = jobInfo.get(i).replaceAll(" ", "").split(":", 2);
-                    if (tagItem.length == 2) {
-                        String tagName = tagItem[0];
-                        String tagValue = tagItem[1];
-                        // Fills regex group values from the regex job name to tag values
-                        // eg: (.*?)-job, owner:$1
-                        if (Character.toString(tagValue.charAt(0)).equals("$")) {
-                            try {
-                                tagValue = jobNameMatcher.group(Character.getNumericValue(tagValue.charAt(1)));
-                            } catch (IndexOutOfBoundsException e) {
-                                logger.fine(String.format(
-                                        "Specified a capture group that doesn't exist, not applying tag: %s Exception: %s",
-                                        Arrays.toString(tagItem), e));
-                            }
-                        }
-                        Set<String> tagValues = tags.containsKey(tagName) ? tags.get(tagName) : new HashSet<String>();
-                        tagValues.add(tagValue.toLowerCase());
-                        tags.put(tagName, tagValues);
-                    } else if(tagItem.length == 1) {
-                        String tagName = tagItem[0];
-                        Set<String> tagValues = tags.containsKey(tagName) ? tags.get(tagName) : new HashSet<String>();
-                        tagValues.add(""); // no values
-                        tags.put(tagName, tagValues);
-                    } else {
-                        logger.fine(String.format("Ignoring the tag %s. It is empty.", tagItem));
-                    }
-                }
-            }
-        }
-
-        return tags;
+        return getDatadogConfig().getJobMatcher().isTracked(jobName);
     }
 
     /**
      * Getter function for the globalTags global configuration, containing
      * a comma-separated list of tags that should be applied everywhere.
      *
-     * @return a map containing the globalTags global configuration.
+     * @return an immutable map containing the globalTags global configuration.
      */
     public static Map<String, Set<String>> getTagsFromGlobalTags() {
-        final String globalTags = getDatadogGlobalDescriptor().getGlobalTags();
-        Map<String, Set<String>> tags = new HashMap<>();
-        List<String> globalTagsLines = DatadogUtilities.linesToList(globalTags);
-
-        for (String globalTagsLine : globalTagsLines) {
-            List<String> tagList = DatadogUtilities.cstrToList(globalTagsLine);
-            if (tagList.isEmpty()) {
-                continue;
-            }
-
-            for (int i = 0; i < tagList.size(); i++) {
-                String[] tagItem = tagList.get(i).replaceAll(" ", "").split(":", 2);
-                if(tagItem.length == 2) {
-                    String tagName = tagItem[0];
-                    String tagValue = tagItem[1];
-                    Set<String> tagValues = tags.containsKey(tagName) ? tags.get(tagName) : new HashSet<String>();
-                    tagValues.add(tagValue.toLowerCase());
-                    tags.put(tagName, tagValues);
-                } else if(tagItem.length == 1) {
-                    String tagName = tagItem[0];
-                    Set<String> tagValues = tags.containsKey(tagName) ? tags.get(tagName) : new HashSet<String>();
-                    tagValues.add(""); // no values
-                    tags.put(tagName, tagValues);
-                } else {
-                    logger.fine(String.format("Ignoring the tag %s. It is empty.", tagItem));
-                }
-            }
-        }
-
-        return tags;
-    }
-
-    /**
-     * Checks if a jobName is blacklisted.
-     *
-     * @param jobName - A String containing the name of some job.
-     * @return a boolean to signify if the jobName is or is not blacklisted.
-     */
-    private static boolean isJobBlacklisted(final String jobName) {
-        final String blacklistProp = getDatadogGlobalDescriptor().getBlacklist();
-        List<String> blacklist = cstrToList(blacklistProp);
-        for (String blacklistedJob : blacklist){
-            Pattern blacklistedJobPattern = Pattern.compile(blacklistedJob);
-            Matcher jobNameMatcher = blacklistedJobPattern.matcher(jobName);
-            if (jobNameMatcher.matches()) {
-                return true;
-            }
-        }
-        return false;
-
-    }
-
-    /**
-     * Checks if a jobName is whitelisted.
-     *
-     * @param jobName - A String containing the name of some job.
-     * @return a boolean to signify if the jobName is or is not whitelisted.
-     */
-    private static boolean isJobWhitelisted(final String jobName) {
-        final String whitelistProp = getDatadogGlobalDescriptor().getWhitelist();
-        final List<String> whitelist = cstrToList(whitelistProp);
-        for (String whitelistedJob : whitelist){
-            Pattern whitelistedJobPattern = Pattern.compile(whitelistedJob);
-            Matcher jobNameMatcher = whitelistedJobPattern.matcher(jobName);
-            if (jobNameMatcher.matches()) {
-                return true;
-            }
-        }
-        return whitelist.isEmpty();
+        return getDatadogConfig().getGlobalTagRules().getGlobalTags();
     }
 
     /**
@@ -297,15 +174,36 @@ public class DatadogUtilities {
     }
 
     public static Map<String, Set<String>> computeTagListFromVarList(EnvVars envVars, final String varList) {
-        HashMap<String, Set<String>> result = new HashMap<>();
-        List<String> rawTagList = linesToList(varList);
-        for (String tagLine : rawTagList) {
-            List<String> tagList = DatadogUtilities.cstrToList(tagLine);
-            if (tagList.isEmpty()) {
-                continue;
+        return computeTagList(envVars, tagListFromVarList(varList));
+    }
+
+    /**
+     * Splits a list of tags, one or more comma-separated tags per line, into single tags.
+     *
+     * @param varList - A String containing the list of tags
+     * @return a String List with all tags, spaces removed and variables not expanded yet
+     */
+    public static List<String> tagListFromVarList(final String varList) {
+        List<String> result = new ArrayList<>();
+        for (String tagLine : linesToList(varList)) {
+            for (String tag : DatadogUtilities.cstrToList(tagLine)) {
+                result.add(tag.replaceAll(" ", ""));
             }
-            for (int i = 0; i < tagList.size(); i++) {
-                String tag = tagList.get(i).replaceAll(" ", "");
+        }
+        return result;
+    }
+
+    /**
+     * Expands the environment variables of a list of tags and converts it into a map of tags.
+     *
+     * @param envVars - The environment variables of the build
+     * @param tagList - A String List of tags as returned by {@link #tagListFromVarList(String)}
+     * @return a map containing the tags values
+     */
+    public static Map<String, Set<String>> computeTagList(EnvVars envVars, final List<String> tagList) {
+        HashMap<String, Set<String>> result = new HashMap<>();
+        if (tagList != null) {
+            for (String tag : tagList) {
                 String[] expanded = envVars.expand(tag).split("=", 2);
                 if (expanded.length == 2) {
                     String name = expanded[0];
@@ -337,17 +235,16 @@ public class DatadogUtilities {
      * Jenkins hostname environment variable
      * Unix hostname via `/bin/hostname -f`
      * Localhost hostname
+     * The last two are cached by the {@link HostnameResolver}.
      *
      * @param envVarHostname - The Jenkins hostname environment variable
      * @return a human readable String for the hostname.
      */
     public static String getHostname(String envVarHostname) {
-        String[] UNIX_OS = {"mac", "linux", "freebsd", "sunos"};
-
         // Check hostname configuration from Jenkins
         String hostname = null;
         try {
-            hostname = getDatadogGlobalDescriptor().getHostname();
+            hostname = getDatadogConfig().getHostname();
         } catch (NullPointerException e){
             // noop
         }
@@ -365,54 +262,15 @@ public class DatadogUtilities {
             return hostname;
         }
 
-        // Check OS specific unix commands
-        String os = getOS();
-        if (Arrays.asList(UNIX_OS).contains(os)) {
-            // Attempt to grab unix hostname
-            try {
-                String[] cmd = {"/bin/hostname", "-f"};
-                Process proc = Runtime.getRuntime().exec(cmd);
-                InputStream in = proc.getInputStream();
-                BufferedReader reader = new BufferedReader(new InputStreamReader(in));
-                StringBuilder out = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    out.append(line);
-                }
-                reader.close();
-
-                hostname = out.toString();
-            } catch (Exception e) {
-                logger.severe(e.getMessage());
-            }
-
-            // Check hostname
-            if (isValidHostname(hostname)) {
-                logger.fine(String.format("Using unix hostname found via `/bin/hostname -f`. Hostname: %s",
-                        hostname));
-                return hostname;
-            }
-        }
-
-        // Check localhost hostname
-        try {
-            hostname = Inet4Address.getLocalHost().getHostName();
-        } catch (UnknownHostException e) {
-            logger.fine(String.format("Unknown hostname error received for localhost. Error: %s", e));
-        }
-        if (isValidHostname(hostname)) {
-            logger.fine(String.format("Using hostname found via "
-                    + "Inet4Address.getLocalHost().getHostName()."
-                    + " Hostname: %s", hostname));
+        // Check the system hostname, resolved in the background
+        hostname = HostnameResolver.getSystemHostname();
+        if (hostname != null) {
             return hostname;
         }
 
         // Never found the hostname
-        if (hostname == null || "".equals(hostname)) {
-            logger.warning("Unable to reliably determine host name. You can define one in "
-                    + "the 'Manage Plugins' section under the 'Datadog Plugin' section.");
-        }
-
+        logger.warning("Unable to reliably determine host name. You can define one in "
+                + "the 'Manage Plugins' section under the 'Datadog Plugin' section.");
         return null;
     }
 
@@ -428,16 +286,10 @@ public class DatadogUtilities {
             return false;
         }
 
-        String[] localHosts = {"localhost", "localhost.localdomain",
-                "localhost6.localdomain6", "ip6-localhost"};
-        String VALID_HOSTNAME_RFC_1123_PATTERN = "^(([a-zA-Z0-9]|"
-                + "[a-zA-Z0-9][a-zA-Z0-9\\-]*[a-zA-Z0-9])\\.)*"
-                + "([A-Za-z0-9]|"
-                + "[A-Za-z0-9][A-Za-z0-9\\-]*[A-Za-z0-9])$";
         String host = hostname.toLowerCase();
 
         // Check if hostname is local
-        if (Arrays.asList(localHosts).contains(host)) {
+        if (LOCAL_HOSTS.contains(host)) {
             logger.fine(String.format("Hostname: %s is local", hostname));
             return false;
         }
@@ -450,8 +302,7 @@ public class DatadogUtilities {
         }
 
         // Check compliance with RFC 1123
-        Pattern r = Pattern.compile(VALID_HOSTNAME_RFC_1123_PATTERN);
-        Matcher m = r.matcher(hostname);
+        Matcher m = VALID_HOSTNAME_RFC_1123_PATTERN.matcher(hostname);
 
         // Final check: Hostname matches RFC1123?
         return m.find();
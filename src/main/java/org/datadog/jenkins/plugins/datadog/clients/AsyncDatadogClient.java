@@ -0,0 +1,347 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import hudson.util.Secret;
+import org.datadog.jenkins.plugins.datadog.DatadogClient;
+import org.datadog.jenkins.plugins.datadog.DatadogEvent;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DatadogClient} decorator which hands every submission over to a dedicated sender thread.
+ * Listeners only pay the cost of adding an item to a bounded lock-free queue, the network I/O is
+ * performed by the sender thread using the wrapped client.
+ *
+ * When the queue is full, the configured {@link OverflowPolicy} decides what happens to the new
+ * submission. The policy, the queue capacity and the blocking deadline can be set with the following
+ * system properties:
+ * - org.datadog.jenkins.plugins.datadog.clients.AsyncDatadogClient.capacity
+ * - org.datadog.jenkins.plugins.datadog.clients.AsyncDatadogClient.overflowPolicy
+ * - org.datadog.jenkins.plugins.datadog.clients.AsyncDatadogClient.blockTimeoutMillis
+ */
+public class AsyncDatadogClient implements DatadogClient {
+
+    public static enum OverflowPolicy {
+        // Remove the oldest queued submission to make room for the new one
+        DROP_OLDEST,
+        // Discard the new submission
+        DROP_NEWEST,
+        // Wait for the sender thread to make room, up to a deadline, then discard the new submission
+        BLOCK
+    }
+
+    public static final String ENQUEUED_METRIC = "jenkins.datadog.submissions.enqueued";
+    public static final String DROPPED_METRIC = "jenkins.datadog.submissions.dropped";
+    public static final String SENT_METRIC = "jenkins.datadog.submissions.sent";
+    public static final String QUEUE_SIZE_METRIC = "jenkins.datadog.submissions.queue_size";
+
+    private static final Logger logger = Logger.getLogger(AsyncDatadogClient.class.getName());
+    private static final String PROPERTY_PREFIX = AsyncDatadogClient.class.getName();
+
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final long DEFAULT_BLOCK_TIMEOUT_MILLIS = 100;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static AsyncDatadogClient instance;
+
+    private volatile DatadogClient delegate;
+    private volatile Thread sender;
+
+    private final ConcurrentLinkedQueue<Submission> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * NOTE: Use ClientFactory.getClient method to instantiate the client in the Jenkins Plugin
+     * @param delegate - the client used to actually transmit submissions
+     * @return an singleton instance of the AsyncDatadogClient.
+     */
+    public static DatadogClient getInstance(DatadogClient delegate) {
+        if(instance == null){
+            synchronized (AsyncDatadogClient.class) {
+                if(instance == null){
+                    instance = new AsyncDatadogClient(delegate, Integer.getInteger(PROPERTY_PREFIX + ".capacity", DEFAULT_CAPACITY),
+                            getOverflowPolicyProperty(),
+                            Long.getLong(PROPERTY_PREFIX + ".blockTimeoutMillis", DEFAULT_BLOCK_TIMEOUT_MILLIS));
+                }
+            }
+        }
+
+        // We reset the delegate just in case the client type changed
+        instance.delegate = delegate;
+        return instance;
+    }
+
+    AsyncDatadogClient(DatadogClient delegate, int capacity, OverflowPolicy overflowPolicy, long blockTimeoutMillis) {
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+    }
+
+    private static OverflowPolicy getOverflowPolicyProperty() {
+        String value = System.getProperty(PROPERTY_PREFIX + ".overflowPolicy");
+        if (value != null) {
+            try {
+                return OverflowPolicy.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warning("Unknown overflow policy " + value + ", using " + OverflowPolicy.DROP_OLDEST);
+            }
+        }
+        return OverflowPolicy.DROP_OLDEST;
+    }
+
+    public DatadogClient getDelegate() {
+        return delegate;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    @Override
+    public void setUrl(String url) {
+        delegate.setUrl(url);
+    }
+
+    @Override
+    public void setApiKey(Secret apiKey) {
+        delegate.setApiKey(apiKey);
+    }
+
+    @Override
+    public void setHostname(String hostname) {
+        delegate.setHostname(hostname);
+    }
+
+    @Override
+    public void setPort(int port) {
+        delegate.setPort(port);
+    }
+
+    @Override
+    public boolean event(final DatadogEvent event) {
+        return submit(new Submission() {
+            @Override
+            void send(DatadogClient client) {
+                client.event(event);
+            }
+        });
+    }
+
+    @Override
+    public void incrementCounter(String name, String hostname, Map<String, Set<String>> tags) {
+        // Counters are aggregated in memory, there is no I/O involved.
+        delegate.incrementCounter(name, hostname, tags);
+    }
+
+    @Override
+    public void incrementCounter(String name, long value, String hostname, Map<String, Set<String>> tags) {
+        delegate.incrementCounter(name, value, hostname, tags);
+    }
+
+    @Override
+    public void flushCounters() {
+        submit(new Submission() {
+            @Override
+            void send(DatadogClient client) {
+                client.flushCounters();
+            }
+        });
+    }
+
+    @Override
+    public boolean gauge(final String name, final long value, final String hostname, final Map<String, Set<String>> tags) {
+        return submit(new Submission() {
+            @Override
+            void send(DatadogClient client) {
+                client.gauge(name, value, hostname, tags);
+            }
+        });
+    }
+
+    @Override
+    public boolean distribution(String name, double value, String hostname, Map<String, Set<String>> tags) {
+        // Distributions are aggregated in memory, there is no I/O involved.
+        return delegate.distribution(name, value, hostname, tags);
+    }
+
+    @Override
+    public boolean serviceCheck(final String name, final Status status, final String hostname, final Map<String, Set<String>> tags) {
+        return submit(new Submission() {
+            @Override
+            void send(DatadogClient client) {
+                client.serviceCheck(name, status, hostname, tags);
+            }
+        });
+    }
+
+    @Override
+    public boolean validate() throws IOException, ServletException {
+        return delegate.validate();
+    }
+
+    /**
+     * Adds a submission to the queue, applying the overflow policy if the queue is full.
+     *
+     * @param submission - the submission to hand over to the sender thread
+     * @return true if the submission was queued, false if it was dropped.
+     */
+    private boolean submit(Submission submission) {
+        Thread senderThread = getSender();
+        int previousSize = reserve();
+        if (previousSize < 0) {
+            dropped.incrementAndGet();
+            PluginMetrics.increment(DROPPED_METRIC);
+            logger.fine("Submission queue is full, dropping the newest submission");
+            return false;
+        }
+        queue.offer(submission);
+        enqueued.incrementAndGet();
+        PluginMetrics.increment(ENQUEUED_METRIC);
+        if (previousSize == 0) {
+            // The sender thread may be waiting for work
+            LockSupport.unpark(senderThread);
+        }
+        return true;
+    }
+
+    /**
+     * Reserves a slot in the queue.
+     *
+     * @return the queue size before the reservation, or -1 if no slot could be reserved.
+     */
+    private int reserve() {
+        long deadline = 0;
+        while (true) {
+            int size = queueSize.get();
+            if (size < capacity) {
+                if (queueSize.compareAndSet(size, size + 1)) {
+                    return size;
+                }
+                continue;
+            }
+            switch (overflowPolicy) {
+                case DROP_OLDEST:
+                    if (queue.poll() != null) {
+                        queueSize.decrementAndGet();
+                        dropped.incrementAndGet();
+                        PluginMetrics.increment(DROPPED_METRIC);
+                        logger.fine("Submission queue is full, dropping the oldest submission");
+                    } else {
+                        // Slots are reserved by submissions not offered yet
+                        Thread.yield();
+                    }
+                    break;
+                case BLOCK:
+                    if (deadline == 0) {
+                        deadline = System.nanoTime() + blockTimeoutNanos;
+                    } else if (System.nanoTime() - deadline >= 0) {
+                        return -1;
+                    }
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    break;
+                default:
+                    return -1;
+            }
+        }
+    }
+
+    private Thread getSender() {
+        Thread thread = sender;
+        if (thread == null || !thread.isAlive()) {
+            synchronized (this) {
+                thread = sender;
+                // The sender thread is started again if it died
+                if (thread == null || !thread.isAlive()) {
+                    thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            drain();
+                        }
+                    }, "Datadog Submission Sender");
+                    thread.setDaemon(true);
+                    thread.start();
+                    sender = thread;
+                }
+            }
+        }
+        return thread;
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Submission submission = queue.poll();
+            if (submission == null) {
+                PluginMetrics.set(QUEUE_SIZE_METRIC, 0);
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            PluginMetrics.set(QUEUE_SIZE_METRIC, queueSize.decrementAndGet());
+            try {
+                submission.send(delegate);
+                sent.incrementAndGet();
+                PluginMetrics.increment(SENT_METRIC);
+            } catch (Throwable e) {
+                // A single submission must not stop the sender thread
+                logger.warning("Unexpected exception occurred - " + e.getMessage());
+            }
+        }
+    }
+
+    private static abstract class Submission {
+        abstract void send(DatadogClient client);
+    }
+}
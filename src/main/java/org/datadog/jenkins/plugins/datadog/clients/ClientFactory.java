@@ -27,26 +27,58 @@ package org.datadog.jenkins.plugins.datadog.clients;
 
 import hudson.util.Secret;
 import org.datadog.jenkins.plugins.datadog.DatadogClient;
-import org.datadog.jenkins.plugins.datadog.DatadogGlobalConfiguration;
+import org.datadog.jenkins.plugins.datadog.DatadogConfigSnapshot;
 import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
 
 public class ClientFactory {
 
-    public static DatadogClient getClient(DatadogClient.ClientType type, String apiUrl, Secret apiKey, String host, Integer port){
+    /**
+     * @return a client which submits data in the background using the client matching the given type.
+     */
+    public static DatadogClient getClient(DatadogClient.ClientType type, String apiUrl, Secret apiKey, String host, Integer port,
+                                          String socketPath){
+        DatadogClient client = getSynchronousClient(type, apiUrl, apiKey, host, port, socketPath);
+        if (client == null) {
+            return null;
+        }
+        return AsyncDatadogClient.getInstance(client);
+    }
+
+    /**
+     * @return a client which submits data on the calling thread.
+     */
+    public static DatadogClient getSynchronousClient(DatadogClient.ClientType type, String apiUrl, Secret apiKey, String host, Integer port,
+                                                     String socketPath){
         switch(type){
             case HTTP:
                 return DatadogHttpClient.getInstance(apiUrl, apiKey);
             case DSD:
-                return DogStatsDClient.getInstance(host, port);
+                return DogStatsDClient.getInstance(host, port, socketPath);
             default:
                 return null;
         }
     }
 
     public static DatadogClient getClient() {
-        DatadogGlobalConfiguration descriptor = DatadogUtilities.getDatadogGlobalDescriptor();
-        return ClientFactory.getClient(DatadogClient.ClientType.valueOf(descriptor.getReportWith()),
-                descriptor.getTargetApiURL(), descriptor.getTargetApiKey(),
-                descriptor.getTargetHost(), descriptor.getTargetPort());
+        DatadogConfigSnapshot config = DatadogUtilities.getDatadogConfig();
+        if (config == null) {
+            return null;
+        }
+        return ClientFactory.getClient(config.getClientType(),
+                config.getTargetApiURL(), config.getTargetApiKey(),
+                config.getTargetHost(), config.getTargetPort(), config.getTargetSocketPath());
+    }
+
+    /**
+     * @return the configured client, without the background submission.
+     */
+    public static DatadogClient getSynchronousClient() {
+        DatadogConfigSnapshot config = DatadogUtilities.getDatadogConfig();
+        if (config == null) {
+            return null;
+        }
+        return ClientFactory.getSynchronousClient(config.getClientType(),
+                config.getTargetApiURL(), config.getTargetApiKey(),
+                config.getTargetHost(), config.getTargetPort(), config.getTargetSocketPath());
     }
 }
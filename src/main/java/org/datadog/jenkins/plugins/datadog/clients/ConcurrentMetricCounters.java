@@ -29,13 +29,29 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Aggregates counter increments until they are flushed.
+ *
+ * Counters are keyed by their interned {@link MetricKey}. Increments don't take any lock: each counter
+ * is a LongAdder, and counters are held in an epoch that is swapped on flush. Writers register themselves
+ * on the epoch they update, so that a flush can wait for in-flight increments before reading the values
+ * of the previous epoch.
+ */
 public class ConcurrentMetricCounters {
 
     private static final Logger logger = Logger.getLogger(ConcurrentMetricCounters.class.getName());
     private static ConcurrentMetricCounters instance;
-    private static ConcurrentMap<CounterMetric, Integer> counters = new ConcurrentHashMap<>();
+
+    // Writers are spread over stripes, each padded to its own cache line, to avoid contention
+    private static final int STRIPES = 64;
+    private static final int PADDING = 16;
+
+    private volatile Epoch current = new Epoch();
 
     private ConcurrentMetricCounters(){}
 
@@ -50,49 +66,76 @@ public class ConcurrentMetricCounters {
         return instance;
     }
 
-    private static ConcurrentMap<CounterMetric, Integer> get(){
-        ConcurrentMetricCounters countersInstance = ConcurrentMetricCounters.getInstance();
-        return countersInstance.getCounters();
+    public void increment(String name, String hostname, Map<String, Set<String>> tags) {
+        add(name, 1, hostname, tags);
     }
 
-    private static void reset(){
-        ConcurrentMetricCounters countersInstance = ConcurrentMetricCounters.getInstance();
-        countersInstance.resetCounters();
+    public void add(String name, long value, String hostname, Map<String, Set<String>> tags) {
+        MetricKey key = MetricKey.of(name, hostname, tags);
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1)) * PADDING;
+        while (true) {
+            Epoch epoch = current;
+            epoch.writers.incrementAndGet(stripe);
+            try {
+                if (epoch != current) {
+                    // Flushed in the meantime, count in the new epoch
+                    continue;
+                }
+                epoch.get(key).add(value);
+                break;
+            } finally {
+                epoch.writers.decrementAndGet(stripe);
+            }
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Counter " + name + " incremented");
+        }
     }
 
-    private void resetCounters(){
-        counters = new ConcurrentHashMap<>();
-    }
+    /**
+     * Starts a new aggregation period.
+     *
+     * @return the counter values aggregated since the last call.
+     */
+    public synchronized ConcurrentMap<CounterMetric, Integer> getAndReset(){
+        Epoch epoch = current;
+        current = new Epoch();
+        // Wait for writers that started incrementing before the swap
+        while (epoch.hasWriters()) {
+            Thread.yield();
+        }
 
-    private ConcurrentMap<CounterMetric, Integer> getCounters(){
+        ConcurrentMap<CounterMetric, Integer> counters = new ConcurrentHashMap<>();
+        for (Map.Entry<MetricKey, LongAdder> entry : epoch.counters.entrySet()) {
+            long value = entry.getValue().sum();
+            counters.put(new CounterMetric(entry.getKey()), (int) Math.min(value, Integer.MAX_VALUE));
+        }
         return counters;
     }
 
-    public synchronized void increment(String name, String hostname, Map<String, Set<String>> tags) {
-        ConcurrentMap<CounterMetric, Integer> counters = ConcurrentMetricCounters.get();
-        CounterMetric counterMetric = new CounterMetric(tags, name, hostname);
-        Integer previousValue = counters.putIfAbsent(counterMetric, 1);
-        if (previousValue != null){
-            boolean ok = counters.replace(counterMetric, previousValue, previousValue + 1);
-            // NOTE:
-            // This while loop below should never be called since we are using a lock when flushing and
-            // incrementing counters.
-            while(!ok) {
-                logger.warning("Couldn't increment counter " + name + " with value " + (previousValue + 1) +
-                        " previousValue = " + previousValue);
-                previousValue = counters.get(counterMetric);
-                ok = counters.replace(counterMetric, previousValue, previousValue + 1);
+    private static class Epoch {
+        private final ConcurrentMap<MetricKey, LongAdder> counters = new ConcurrentHashMap<>();
+        private final AtomicLongArray writers = new AtomicLongArray(STRIPES * PADDING);
+
+        LongAdder get(MetricKey key) {
+            LongAdder adder = counters.get(key);
+            if (adder == null) {
+                adder = new LongAdder();
+                LongAdder previous = counters.putIfAbsent(key, adder);
+                if (previous != null) {
+                    adder = previous;
+                }
             }
+            return adder;
         }
-        previousValue = previousValue == null ? 0 : previousValue;
-        logger.fine("Counter " + name + " updated from previousValue " + previousValue + " to "
-                + (previousValue + 1));
-    }
 
-    public synchronized ConcurrentMap<CounterMetric, Integer> getAndReset(){
-        ConcurrentMap<CounterMetric, Integer> counters = ConcurrentMetricCounters.get();
-        ConcurrentMetricCounters.reset();
-        return counters;
+        boolean hasWriters() {
+            for (int i = 0; i < STRIPES; i++) {
+                if (writers.get(i * PADDING) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
-
 }
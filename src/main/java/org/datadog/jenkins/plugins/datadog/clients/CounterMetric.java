@@ -34,6 +34,7 @@ public class CounterMetric {
     private Map<String, Set<String>> tags = new HashMap<>();
     private String metricName;
     private String hostname;
+    private MetricKey key;
 
     public CounterMetric(Map<String, Set<String>> tags, String metricName, String hostname) {
         this.tags = tags;
@@ -41,12 +42,28 @@ public class CounterMetric {
         this.hostname = hostname;
     }
 
+    CounterMetric(MetricKey key) {
+        this(key.getTagMap(), key.getMetricName(), key.getHostname());
+        this.key = key;
+    }
+
+    /**
+     * @return the canonical key of the counter series.
+     */
+    public MetricKey getKey() {
+        if (key == null) {
+            key = MetricKey.of(metricName, hostname, tags);
+        }
+        return key;
+    }
+
     public Map<String, Set<String>> getTags() {
         return tags;
     }
 
     public void setTags(Map<String, Set<String>> tags) {
         this.tags = tags;
+        this.key = null;
     }
 
     public String getMetricName() {
@@ -55,6 +72,7 @@ public class CounterMetric {
 
     public void setMetricName(String metricName) {
         this.metricName = metricName;
+        this.key = null;
     }
 
     public String getHostname() {
@@ -63,6 +81,7 @@ public class CounterMetric {
 
     public void setHostname(String hostname) {
         this.hostname = hostname;
+        this.key = null;
     }
 
     @Override
@@ -25,27 +25,24 @@ THE SOFTWARE.
 
 package org.datadog.jenkins.plugins.datadog.clients;
 
-import hudson.ProxyConfiguration;
 import hudson.util.Secret;
-import jenkins.model.Jenkins;
-import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import net.sf.json.JSONSerializer;
 import org.datadog.jenkins.plugins.datadog.DatadogClient;
 import org.datadog.jenkins.plugins.datadog.DatadogEvent;
-import org.datadog.jenkins.plugins.datadog.util.TagsUtil;
+import org.datadog.jenkins.plugins.datadog.util.JsonWriter;
+import org.datadog.jenkins.plugins.datadog.util.TagSet;
 
 import javax.servlet.ServletException;
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
-import java.net.Proxy;
-import java.net.URL;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -56,18 +53,41 @@ public class DatadogHttpClient implements DatadogClient {
 
     private static DatadogClient instance;
     private static final Logger logger = Logger.getLogger(DatadogHttpClient.class.getName());
+    private static final String PROPERTY_PREFIX = DatadogHttpClient.class.getName();
 
     private static final String EVENT = "v1/events";
     private static final String METRIC = "v1/series";
+    private static final String DISTRIBUTION = "v1/distribution_points";
     private static final String SERVICECHECK = "v1/check_run";
     private static final String VALIDATE = "v1/validate";
 
     private static final Integer HTTP_FORBIDDEN = 403;
+    private static final Integer HTTP_TOO_MANY_REQUESTS = 429;
+
+    private static enum SendResult {
+        SENT,
+        // Rejected by the API, the payload is dropped
+        FAILED,
+        // The API could not be reached or is unavailable, the payload can be sent later
+        RETRY
+    }
 
     public static boolean enableValidations = true;
 
+    private static final int RATE_INTERVAL = 10;
+    private static final int DISTRIBUTION_BATCH_SIZE = 100;
+
+    public static final String PAYLOAD_RAW_BYTES = "jenkins.datadog.payload.raw_bytes";
+    public static final String PAYLOAD_COMPRESSED_BYTES = "jenkins.datadog.payload.compressed_bytes";
+    public static final String FLUSH_RAW_BYTES = "jenkins.datadog.flush.raw_bytes";
+    public static final String FLUSH_COMPRESSED_BYTES = "jenkins.datadog.flush.compressed_bytes";
+
     private String url;
     private Secret apiKey;
+    private final SeriesBuffer seriesBuffer = new SeriesBuffer();
+    private final GaugeAggregator gauges = new GaugeAggregator();
+    private final DistributionAggregator distributions = new DistributionAggregator();
+    private final PayloadEntity.Compression compression = getCompressionProperty();
 
     /**
      * NOTE: Use ClientFactory.getClient method to instantiate the client in the Jenkins Plugin
@@ -107,6 +127,18 @@ public class DatadogHttpClient implements DatadogClient {
         this.apiKey = apiKey;
     }
 
+    private static PayloadEntity.Compression getCompressionProperty() {
+        String value = System.getProperty(PROPERTY_PREFIX + ".compression");
+        if (value != null) {
+            try {
+                return PayloadEntity.Compression.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warning("Unknown payload compression " + value + ", using " + PayloadEntity.Compression.NONE);
+            }
+        }
+        return PayloadEntity.Compression.NONE;
+    }
+
     public String getUrl() {
         return url;
     }
@@ -139,17 +171,7 @@ public class DatadogHttpClient implements DatadogClient {
         logger.fine("Sending event");
         boolean status;
         try {
-            JSONObject payload = new JSONObject();
-            payload.put("title", event.getTitle());
-            payload.put("text", event.getText());
-            payload.put("host", event.getHost());
-            payload.put("aggregation_key", event.getAggregationKey());
-            payload.put("date_happened", event.getDate());
-            payload.put("tags", TagsUtil.convertTagsToJSONArray(event.getTags()));
-            payload.put("source_type_name", "jenkins");
-            payload.put("priority", event.getPriority().name().toLowerCase());
-            payload.put("alert_type", event.getAlertType().name().toLowerCase());
-            status = post(payload, EVENT);
+            status = post(eventWriter(event), EVENT) != null;
         } catch (Exception e) {
             logger.severe(e.toString());
             status = false;
@@ -162,241 +184,451 @@ public class DatadogHttpClient implements DatadogClient {
         ConcurrentMetricCounters.getInstance().increment(name, hostname, tags);
     }
 
+    @Override
+    public void incrementCounter(String name, long value, String hostname, Map<String, Set<String>> tags) {
+        ConcurrentMetricCounters.getInstance().add(name, value, hostname, tags);
+    }
+
     @Override
     public void flushCounters() {
         ConcurrentMap<CounterMetric, Integer> counters = ConcurrentMetricCounters.getInstance().getAndReset();
+        long now = System.currentTimeMillis() / 1000; // current time, s
 
         logger.fine("Run flushCounters method");
-        // Submit all metrics as gauge
+        // Submit all metrics as rate
         for (CounterMetric counterMetric: counters.keySet()) {
             int count = counters.get(counterMetric);
             logger.fine("Flushing: " + counterMetric.getMetricName() + " - " + count);
             // Since we submit a rate we need to divide the submitted value by the interval (10)
-            this.postMetric(counterMetric.getMetricName(), count, counterMetric.getHostname(),
-                    counterMetric.getTags(), "rate");
+            if (this.bufferMetric(counterMetric.getKey(), count, "rate", now)) {
+                // The buffer is full or too old, send it before buffering more points
+                flushSeries();
+            }
+        }
 
+        // Only the last value of each gauge is submitted
+        for (GaugeAggregator.Sample sample : gauges.drain()) {
+            if (this.bufferMetric(sample.getKey(), sample.getValue(), "gauge", sample.getTimestamp())) {
+                flushSeries();
+            }
         }
+
+        // Counters are flushed periodically, we use this opportunity to send all buffered points.
+        flushSeries();
+        flushDistributions();
     }
 
     @Override
     public boolean gauge(String name, long value, String hostname, Map<String, Set<String>> tags) {
-        return postMetric(name, value, hostname, tags, "gauge");
+        // Gauges are aggregated and submitted along with the counters
+        gauges.set(name, value, hostname, tags);
+        return true;
     }
 
-    private boolean postMetric(String name, float value, String hostname, Map<String, Set<String>> tags, String type) {
-        int INTERVAL = 10;
-
-        logger.fine(String.format("Sending metric '%s' with value %s", name, String.valueOf(value)));
+    @Override
+    public boolean distribution(String name, double value, String hostname, Map<String, Set<String>> tags) {
+        // Distributions are aggregated and submitted along with the counters
+        distributions.add(name, value, hostname, tags);
+        return true;
+    }
 
-        // Setup data point, of type [<unix_timestamp>, <value>]
-        JSONArray points = new JSONArray();
-        JSONArray point = new JSONArray();
+    /**
+     * Adds a metric point to the series buffer.
+     *
+     * @return true if the buffer should be flushed.
+     */
+    private boolean bufferMetric(MetricKey key, float value, String type, long timestamp) {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format("Buffering metric '%s' with value %s", key.getMetricName(), String.valueOf(value)));
+        }
 
-        point.add(System.currentTimeMillis() / 1000); // current time, s
+        Integer interval = null;
         if(type.equals("rate")){
-            point.add(value / (float)INTERVAL);
-        } else {
-            point.add(value);
+            value = value / (float)RATE_INTERVAL;
+            interval = RATE_INTERVAL;
         }
-        points.add(point); // api expects a list of points
+        return seriesBuffer.add(new SeriesBuffer.Point(key, type, timestamp, value, interval));
+    }
 
-        JSONObject metric = new JSONObject();
-        metric.put("metric", name);
-        metric.put("points", points);
-        metric.put("type", type);
-        metric.put("host", hostname);
-        if(type.equals("rate")){
-            metric.put("interval", INTERVAL);
+    /**
+     * Sends all buffered metric points to the Datadog API, using as few requests as possible.
+     *
+     * @return a boolean to signify the success or failure of the HTTP POST requests.
+     */
+    public boolean flushSeries() {
+        boolean status = true;
+        long rawBytes = 0;
+        long compressedBytes = 0;
+        for (List<SeriesBuffer.Point> batch : seriesBuffer.drain()) {
+            logger.fine(String.format("Sending %d metric points", batch.size()));
+            try {
+                PayloadEntity entity = post(seriesWriter(batch), METRIC);
+                if (entity != null) {
+                    rawBytes += entity.getRawBytes();
+                    compressedBytes += entity.getCompressedBytes();
+                } else {
+                    status = false;
+                }
+            } catch (Exception e) {
+                logger.severe(e.toString());
+                status = false;
+            }
         }
-        if (tags != null) {
-            logger.fine(tags.toString());
-            metric.put("tags", TagsUtil.convertTagsToJSONArray(tags));
+        if (rawBytes > 0) {
+            PluginMetrics.set(FLUSH_RAW_BYTES, rawBytes);
+            PluginMetrics.set(FLUSH_COMPRESSED_BYTES, compressedBytes);
         }
-        // Place metric as item of series list
-        JSONArray series = new JSONArray();
-        series.add(metric);
-
-        // Add series to payload
-        JSONObject payload = new JSONObject();
-        payload.put("series", series);
-
-        logger.fine(String.format("payload: %s", payload.toString()));
+        return status;
+    }
 
-        boolean status;
-        try {
-            status = post(payload, METRIC);
-        } catch (Exception e) {
-            logger.severe(e.toString());
-            status = false;
+    /**
+     * Sends the distributions aggregated since the last flush to the Datadog API.
+     *
+     * @return a boolean to signify the success or failure of the HTTP POST requests.
+     */
+    public boolean flushDistributions() {
+        boolean status = true;
+        for (List<DistributionAggregator.Sample> batch : batchDistributions()) {
+            logger.fine(String.format("Sending %d distributions", batch.size()));
+            try {
+                status &= post(distributionWriter(batch), DISTRIBUTION) != null;
+            } catch (Exception e) {
+                logger.severe(e.toString());
+                status = false;
+            }
         }
         return status;
     }
 
+    private List<List<DistributionAggregator.Sample>> batchDistributions() {
+        List<List<DistributionAggregator.Sample>> batches = new ArrayList<>();
+        List<DistributionAggregator.Sample> batch = new ArrayList<>();
+        for (DistributionAggregator.Sample sample : distributions.drain()) {
+            if (batch.size() >= DISTRIBUTION_BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+            }
+            batch.add(sample);
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
     @Override
     public boolean serviceCheck(String name, Status status, String hostname, Map<String, Set<String>> tags) {
         logger.fine(String.format("Sending service check '%s' with status %s", name, status));
 
-        // Build payload
-        JSONObject payload = new JSONObject();
-        payload.put("check", name);
-        payload.put("host_name", hostname);
-        payload.put("timestamp", System.currentTimeMillis() / 1000); // current time, s
-        payload.put("status", status.toValue());
-
-        // Remove result tag, so we don't create multiple service check groups
-        if (tags != null) {
-            logger.fine(tags.toString());
-            payload.put("tags", tags);
+        long timestamp = System.currentTimeMillis() / 1000; // current time, s
+        return post(serviceCheckWriter(name, status, hostname, timestamp, tags), SERVICECHECK) != null;
+    }
+
+    /**
+     * Serializes a batch of metric points as a v1/series payload.
+     *
+     * @param batch - the metric points to send
+     * @return a writer for the payload
+     */
+    static PayloadEntity.Writer seriesWriter(final List<SeriesBuffer.Point> batch) {
+        return new PayloadEntity.Writer() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                JsonWriter writer = new JsonWriter(out);
+                writer.beginObject().name("series").beginArray();
+                for (SeriesBuffer.Point p : batch) {
+                    writer.beginObject();
+                    writer.name("metric").value(p.getMetricName());
+                    // Each point is of type [<unix_timestamp>, <value>], the api expects a list of points
+                    writer.name("points").beginArray().beginArray()
+                            .value(p.getTimestamp()).value(p.getValue())
+                            .endArray().endArray();
+                    writer.name("type").value(p.getType());
+                    if (p.getHostname() != null) {
+                        writer.name("host").value(p.getHostname());
+                    }
+                    if (p.getInterval() != null) {
+                        writer.name("interval").value(p.getInterval().longValue());
+                    }
+                    if (p.getKey().getTagCount() > 0) {
+                        // Serialized once per series
+                        writer.name("tags").rawValue(p.getKey().getJsonTags());
+                    }
+                    writer.endObject();
+                }
+                writer.endArray().endObject();
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * Serializes distributions as a v1/distribution_points payload. Each sketch is sent as the list of
+     * its bin values, repeated as many times as they were counted, split over several points if needed.
+     *
+     * @param batch - the distributions to send
+     * @return a writer for the payload
+     */
+    static PayloadEntity.Writer distributionWriter(final List<DistributionAggregator.Sample> batch) {
+        return new PayloadEntity.Writer() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                JsonWriter writer = new JsonWriter(out);
+                writer.beginObject().name("series").beginArray();
+                for (DistributionAggregator.Sample sample : batch) {
+                    MetricKey key = sample.getKey();
+                    writer.beginObject();
+                    writer.name("metric").value(key.getMetricName());
+                    // Each point is of type [<unix_timestamp>, [<value>, ...]]
+                    writer.name("points").beginArray();
+                    int pointValues = 0;
+                    for (QuantileSketch.Bin bin : sample.getSketch().getBins()) {
+                        for (long i = 0; i < bin.getCount(); i++) {
+                            if (pointValues == 0) {
+                                writer.beginArray().value(sample.getTimestamp()).beginArray();
+                            }
+                            writer.value(bin.getValue());
+                            if (++pointValues == DistributionAggregator.MAX_VALUES_PER_POINT) {
+                                writer.endArray().endArray();
+                                pointValues = 0;
+                            }
+                        }
+                    }
+                    if (pointValues > 0) {
+                        writer.endArray().endArray();
+                    }
+                    writer.endArray();
+                    if (key.getHostname() != null) {
+                        writer.name("host").value(key.getHostname());
+                    }
+                    if (key.getTagCount() > 0) {
+                        writer.name("tags").rawValue(key.getJsonTags());
+                    }
+                    writer.endObject();
+                }
+                writer.endArray().endObject();
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * Serializes an event as a v1/events payload.
+     *
+     * @param event - the event to send
+     * @return a writer for the payload
+     */
+    static PayloadEntity.Writer eventWriter(final DatadogEvent event) {
+        return new PayloadEntity.Writer() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                JsonWriter writer = new JsonWriter(out);
+                writer.beginObject();
+                writeMember(writer, "title", event.getTitle());
+                writeMember(writer, "text", event.getText());
+                writeMember(writer, "host", event.getHost());
+                writeMember(writer, "aggregation_key", event.getAggregationKey());
+                if (event.getDate() != null) {
+                    writer.name("date_happened").value(event.getDate().longValue());
+                }
+                writer.name("tags").rawValue(TagSet.of(event.getTags()).getJsonTags());
+                writer.name("source_type_name").value("jenkins");
+                writer.name("priority").value(event.getPriority().name().toLowerCase());
+                writer.name("alert_type").value(event.getAlertType().name().toLowerCase());
+                writer.endObject();
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * Serializes a service check as a v1/check_run payload.
+     *
+     * @param name      - the service check name
+     * @param status    - the service check status
+     * @param hostname  - the hostname reporting the service check
+     * @param timestamp - the service check time, in seconds
+     * @param tags      - the service check tags, may be null
+     * @return a writer for the payload
+     */
+    static PayloadEntity.Writer serviceCheckWriter(final String name, final Status status, final String hostname,
+                                                   final long timestamp, final Map<String, Set<String>> tags) {
+        return new PayloadEntity.Writer() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                JsonWriter writer = new JsonWriter(out);
+                writer.beginObject();
+                writeMember(writer, "check", name);
+                writeMember(writer, "host_name", hostname);
+                writer.name("timestamp").value(timestamp);
+                writer.name("status").value(status.toValue());
+                if (tags != null) {
+                    writer.name("tags").rawValue(TagSet.of(tags).getJsonTags());
+                }
+                writer.endObject();
+                writer.flush();
+            }
+        };
+    }
+
+    private static void writeMember(JsonWriter writer, String name, String value) throws IOException {
+        // Null members are left out of the payload
+        if (value != null) {
+            writer.name(name).value(value);
+        }
+    }
+
+
+    /**
+     * Posts a payload to the Datadog API, using the user configured apiKey. The payload is serialized
+     * straight into the connection, and compressed on the fly if a compression is configured.
+     * Payloads that could not be delivered because of a network error or a server side error are
+     * spooled to the {@link Outbox} to be sent later.
+     *
+     * @param payload - A writer serializing the payload.
+     * @param type    - A String containing the URL subpath pertaining to the type of API post required.
+     * @return the entity that was sent on success, null on failure.
+     */
+    private PayloadEntity post(final PayloadEntity.Writer payload, final String type) {
+        PayloadEntity entity = new PayloadEntity(payload, compression);
+        switch (send(entity, type)) {
+            case SENT:
+                return entity;
+            case RETRY:
+                spool(payload, type);
+                return null;
+            default:
+                return null;
         }
-        return post(payload, SERVICECHECK);
     }
 
     /**
-     * Posts a given {@link JSONObject} payload to the Datadog API, using the
-     * user configured apiKey.
+     * Sends a payload that was previously spooled to the {@link Outbox}.
      *
-     * @param payload - A JSONObject containing a specific subset of a builds metadata.
      * @param type    - A String containing the URL subpath pertaining to the type of API post required.
-     * @return a boolean to signify the success or failure of the HTTP POST request.
-     * @throws IOException if HttpURLConnection fails to open connection
+     * @param payload - the uncompressed payload
+     * @return false if the payload could not be delivered and should be retried later.
      */
-    private boolean post(final JSONObject payload, final String type) {
+    public boolean resend(String type, final byte[] payload) {
+        PayloadEntity entity = new PayloadEntity(new PayloadEntity.Writer() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(payload);
+            }
+        }, compression);
+        // Payloads rejected by the API are dropped, retrying them would not help
+        return send(entity, type) != SendResult.RETRY;
+    }
+
+    /**
+     * Spools all the buffered metric points, counters, gauges and distributions to the {@link Outbox}
+     * without trying to send them, e.g. when Jenkins is shutting down.
+     */
+    public void spoolPending() {
+        ConcurrentMap<CounterMetric, Integer> counters = ConcurrentMetricCounters.getInstance().getAndReset();
+        long now = System.currentTimeMillis() / 1000; // current time, s
+        for (CounterMetric counterMetric: counters.keySet()) {
+            this.bufferMetric(counterMetric.getKey(), counters.get(counterMetric), "rate", now);
+        }
+        for (GaugeAggregator.Sample sample : gauges.drain()) {
+            this.bufferMetric(sample.getKey(), sample.getValue(), "gauge", sample.getTimestamp());
+        }
+        for (List<SeriesBuffer.Point> batch : seriesBuffer.drain()) {
+            spool(seriesWriter(batch), METRIC);
+        }
+        for (List<DistributionAggregator.Sample> batch : batchDistributions()) {
+            spool(distributionWriter(batch), DISTRIBUTION);
+        }
+    }
+
+    private void spool(PayloadEntity.Writer payload, String type) {
+        Outbox outbox = Outbox.getInstance();
+        if (outbox == null) {
+            return;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            payload.writeTo(out);
+        } catch (IOException e) {
+            logger.severe(String.format("Unable to spool API call of type '%s': %s", type, e.toString()));
+            return;
+        }
+        if (outbox.append(type, out.toByteArray())) {
+            logger.fine(String.format("API call of type '%s' was spooled to be sent later", type));
+        }
+    }
+
+    private SendResult send(PayloadEntity entity, String type) {
         String urlParameters = "?api_key=" + Secret.toString(apiKey);
-        HttpURLConnection conn = null;
-        boolean status = true;
+        SendResult status;
 
         try {
-            logger.finer("Setting up HttpURLConnection...");
-            conn = getHttpURLConnection(new URL(url
-                    + type
-                    + urlParameters));
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setUseCaches(false);
-            conn.setDoInput(true);
-            conn.setDoOutput(true);
-            OutputStreamWriter wr = new OutputStreamWriter(conn.getOutputStream(), "utf-8");
-            logger.finer("Writing to OutputStreamWriter...");
-            wr.write(payload.toString());
-            wr.close();
-            BufferedReader rd = new BufferedReader(new InputStreamReader(conn.getInputStream(), "utf-8"));
-            StringBuilder result = new StringBuilder();
-            String line;
-            while ((line = rd.readLine()) != null) {
-                result.append(line);
+            logger.finer("Sending HTTP request...");
+            HttpTransport.Response response = HttpTransport.getInstance().post(url + type + urlParameters, entity);
+            PluginMetrics.add(PAYLOAD_RAW_BYTES, entity.getRawBytes());
+            PluginMetrics.add(PAYLOAD_COMPRESSED_BYTES, entity.getCompressedBytes());
+            if (response.getStatusCode() == HTTP_FORBIDDEN) {
+                logger.severe("Hmmm, your API key may be invalid. We received a 403 error.");
+                return SendResult.FAILED;
             }
-            rd.close();
-            JSONObject json = (JSONObject) JSONSerializer.toJSON(result.toString());
+            if (response.getStatusCode() == HTTP_TOO_MANY_REQUESTS || response.getStatusCode() >= 500) {
+                logger.severe(String.format("Server error: HTTP %d %s", response.getStatusCode(), response.getBody()));
+                return SendResult.RETRY;
+            }
+            if (!response.isSuccessful()) {
+                logger.severe(String.format("Client error: HTTP %d %s", response.getStatusCode(), response.getBody()));
+                return SendResult.FAILED;
+            }
+            JSONObject json = (JSONObject) JSONSerializer.toJSON(response.getBody());
             if ("ok".equals(json.getString("status"))) {
                 logger.finer(String.format("API call of type '%s' was sent successfully!", type));
-                logger.finer(String.format("Payload: %s", payload));
+                if (logger.isLoggable(Level.FINEST)) {
+                    logger.finest(String.format("Payload: %s", entity.getPayloadAsString()));
+                }
+                status = SendResult.SENT;
             } else {
                 logger.fine(String.format("API call of type '%s' failed!", type));
-                logger.fine(String.format("Payload: %s", payload));
-                status = false;
-            }
-        } catch (Exception e) {
-            try {
-                if (conn != null && conn.getResponseCode() == HTTP_FORBIDDEN) {
-                    logger.severe("Hmmm, your API key may be invalid. We received a 403 error.");
-                } else {
-                    logger.severe(String.format("Client error: %s", e.toString()));
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine(String.format("Payload: %s", entity.getPayloadAsString()));
                 }
-            } catch (IOException ex) {
-                logger.severe(ex.toString());
-            }
-            status = false;
-        } finally {
-            if (conn != null) {
-                conn.disconnect();
+                status = SendResult.FAILED;
             }
+        } catch (IOException e) {
+            logger.severe(String.format("Client error: %s", e.toString()));
+            status = SendResult.RETRY;
+        } catch (Exception e) {
+            logger.severe(String.format("Client error: %s", e.toString()));
+            status = SendResult.FAILED;
         }
         return status;
     }
 
     @Override
     public boolean validate() throws IOException, ServletException {
-        String urlParameters = "?api_key=" + apiKey;
-        HttpURLConnection conn = null;
+        String urlParameters = "?api_key=" + Secret.toString(apiKey);
         boolean status = true;
         try {
             // Make request
-            conn = getHttpURLConnection(new URL(url + VALIDATE + urlParameters));
-            conn.setRequestMethod("GET");
-
-            // Get response
-            BufferedReader rd = new BufferedReader(new InputStreamReader(conn.getInputStream(), "utf-8"));
-            StringBuilder result = new StringBuilder();
-            String line;
-            while ((line = rd.readLine()) != null) {
-                result.append(line);
+            HttpTransport.Response response = HttpTransport.getInstance().get(url + VALIDATE + urlParameters);
+            if (response.getStatusCode() == HTTP_FORBIDDEN) {
+                logger.severe("Hmmm, your API key may be invalid. We received a 403 error.");
+                return false;
+            }
+            if (!response.isSuccessful()) {
+                logger.severe(String.format("Client error: HTTP %d %s", response.getStatusCode(), response.getBody()));
+                return false;
             }
-            rd.close();
 
             // Validate
-            JSONObject json = (JSONObject) JSONSerializer.toJSON(result.toString());
+            JSONObject json = (JSONObject) JSONSerializer.toJSON(response.getBody());
             if (!json.getBoolean("valid")) {
                 status = false;
             }
         } catch (Exception e) {
-            if (conn != null && conn.getResponseCode() == HTTP_FORBIDDEN) {
-                logger.severe("Hmmm, your API key may be invalid. We received a 403 error.");
-            } else {
-                logger.severe(String.format("Client error: %s", e.toString()));
-            }
+            logger.severe(String.format("Client error: %s", e.toString()));
             status = false;
-        } finally {
-            if (conn != null) {
-                conn.disconnect();
-            }
         }
         return status;
     }
 
-    /**
-     * Returns an HTTP url connection given a url object. Supports jenkins configured proxy.
-     *
-     * @param url - a URL object containing the URL to open a connection to.
-     * @return a HttpURLConnection object.
-     * @throws IOException if HttpURLConnection fails to open connection
-     */
-    private HttpURLConnection getHttpURLConnection(final URL url) throws IOException {
-        HttpURLConnection conn = null;
-        Jenkins jenkins = Jenkins.getInstance();
-        if (jenkins == null) {
-            return null;
-        }
-        ProxyConfiguration proxyConfig = jenkins.proxy;
-
-        /* Attempt to use proxy */
-        if (proxyConfig != null) {
-            Proxy proxy = proxyConfig.createProxy(url.getHost());
-            if (proxy != null && proxy.type() == Proxy.Type.HTTP) {
-                logger.fine("Attempting to use the Jenkins proxy configuration");
-                conn = (HttpURLConnection) url.openConnection(proxy);
-                if (conn == null) {
-                    logger.fine("Failed to use the Jenkins proxy configuration");
-                }
-            }
-        } else {
-            logger.fine("Jenkins proxy configuration not found");
-        }
-
-        /* If proxy fails, use HttpURLConnection */
-        if (conn == null) {
-            conn = (HttpURLConnection) url.openConnection();
-            logger.fine("Using HttpURLConnection, without proxy");
-        }
-
-        /* Timeout of 1 minutes for connecting and reading.
-        * this prevents this plugin from causing jobs to hang in case of
-        * flaky network or Datadog being down. Left intentionally long.
-        */
-        int timeoutMS = 1 * 60 * 1000;
-        conn.setConnectTimeout(timeoutMS);
-        conn.setReadTimeout(timeoutMS);
-
-        return conn;
-    }
-
 }
@@ -0,0 +1,142 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Aggregates the values of distribution metrics in a {@link QuantileSketch} per series until they are
+ * flushed, so that every value is accounted for whatever the number of values submitted per flush interval,
+ * with a bounded memory usage per series.
+ */
+public class DistributionAggregator {
+
+    public static final String RECEIVED_METRIC = "jenkins.datadog.aggregator.distributions.received";
+    // Maximum number of values per submitted point, the values of a series are split over as many points as needed
+    public static final int MAX_VALUES_PER_POINT = 1000;
+
+    private final ConcurrentMap<MetricKey, Entry> sketches = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a value to the distribution of a series.
+     *
+     * @param name     - the metric name
+     * @param value    - the value
+     * @param hostname - the hostname, may be null
+     * @param tags     - the tags, may be null
+     */
+    public void add(String name, double value, String hostname, Map<String, Set<String>> tags) {
+        MetricKey key = MetricKey.of(name, hostname, tags);
+        while (true) {
+            Entry entry = sketches.get(key);
+            if (entry == null) {
+                Entry newEntry = new Entry(key);
+                entry = sketches.putIfAbsent(key, newEntry);
+                if (entry == null) {
+                    entry = newEntry;
+                }
+            }
+            synchronized (entry) {
+                // A drained sketch was already flushed, the value goes to a new one
+                if (!entry.drained) {
+                    entry.sketch.accept(value);
+                    break;
+                }
+            }
+        }
+        PluginMetrics.increment(RECEIVED_METRIC);
+    }
+
+    public int size() {
+        return sketches.size();
+    }
+
+    /**
+     * Removes the distributions aggregated since the last flush.
+     *
+     * @return a sample holding the sketch of each series.
+     */
+    public List<Sample> drain() {
+        List<Sample> samples = new ArrayList<>(sketches.size());
+        long timestamp = System.currentTimeMillis() / 1000;
+        for (Entry entry : sketches.values()) {
+            sketches.remove(entry.key, entry);
+            synchronized (entry) {
+                entry.drained = true;
+            }
+            if (!entry.sketch.isEmpty()) {
+                samples.add(new Sample(entry.key, entry.sketch, timestamp));
+            }
+        }
+        return samples;
+    }
+
+    private static class Entry {
+        private final MetricKey key;
+        private final QuantileSketch sketch = new QuantileSketch();
+        private boolean drained = false;
+
+        Entry(MetricKey key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * The distribution of a series over a flush interval.
+     */
+    public static class Sample {
+
+        private final MetricKey key;
+        private final QuantileSketch sketch;
+        private final long timestamp;
+
+        private Sample(MetricKey key, QuantileSketch sketch, long timestamp) {
+            this.key = key;
+            this.sketch = sketch;
+            this.timestamp = timestamp;
+        }
+
+        public MetricKey getKey() {
+            return key;
+        }
+
+        public QuantileSketch getSketch() {
+            return sketch;
+        }
+
+        /**
+         * @return the time the distribution was flushed at, in seconds.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
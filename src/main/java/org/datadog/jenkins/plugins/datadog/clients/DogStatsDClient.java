@@ -27,31 +27,72 @@ package org.datadog.jenkins.plugins.datadog.clients;
 
 import com.timgroup.statsd.*;
 import hudson.util.Secret;
+import jenkins.util.Timer;
 import org.datadog.jenkins.plugins.datadog.DatadogClient;
 import org.datadog.jenkins.plugins.datadog.DatadogEvent;
-import org.datadog.jenkins.plugins.datadog.util.TagsUtil;
+import org.datadog.jenkins.plugins.datadog.util.TagSet;
 
 import javax.servlet.ServletException;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 /**
  * This class is used to collect all methods that has to do with transmitting
  * data to Datadog.
+ *
+ * The connection to DogStatsD is managed by a {@link DogStatsDConnection}, which reconnects in the background.
+ * While disconnected, the configured {@link DisconnectedPolicy} decides what happens to the submissions. It can
+ * be set with the org.datadog.jenkins.plugins.datadog.clients.DogStatsDClient.disconnectedPolicy system property.
  */
 public class DogStatsDClient implements DatadogClient {
 
+    public static enum DisconnectedPolicy {
+        // Keep aggregating metrics, and keep the latest events and service checks, until connected
+        BUFFER,
+        // Discard submissions
+        DROP
+    }
+
     private static DatadogClient instance;
     private static final Logger logger = Logger.getLogger(DatadogHttpClient.class.getName());
 
+    public static final String DROPPED_METRIC = "jenkins.datadog.dogstatsd.dropped";
+
+    private static final String PROPERTY_PREFIX = DogStatsDClient.class.getName();
+    private static final long DEFAULT_PACKET_LINGER_MILLIS = 50;
+    // Maximum number of events and of service checks kept while disconnected
+    private static final int MAX_PENDING = 1000;
+
     public static boolean enableValidations = true;
 
-    private StatsDClient statsd;
+    // Called by the DogStatsD client thread when a datagram can't be sent, e.g. when the socket buffer is full
+    private static final StatsDClientErrorHandler errorHandler = new StatsDClientErrorHandler() {
+        @Override
+        public void handle(Exception exception) {
+            PluginMetrics.increment(DROPPED_METRIC);
+            logger.fine("Dropped a DogStatsD datagram - " + exception.getMessage());
+        }
+    };
+
+    private final DogStatsDConnection connection;
+    private final DisconnectedPolicy disconnectedPolicy;
+    private final AtomicBoolean lingering = new AtomicBoolean();
     private String hostname;
     private int port = -1;
-    private boolean isStopped = true;
+    private String socketPath;
+    private final GaugeAggregator gauges = new GaugeAggregator();
+    private final DistributionAggregator distributions = new DistributionAggregator();
+    // Guarded by themselves, filled while disconnected with the BUFFER policy
+    private final Deque<String> pendingServiceChecks = new ArrayDeque<>();
+    private final Deque<Event> pendingEvents = new ArrayDeque<>();
+    private final Deque<String[]> pendingEventTags = new ArrayDeque<>();
 
     /**
      * NOTE: Use ClientFactory.getClient method to instantiate the client in the Jenkins Plugin
@@ -61,8 +102,20 @@ public class DogStatsDClient implements DatadogClient {
      * @return an singleton instance of the DogStatsDClient.
      */
     public static DatadogClient getInstance(String hostname, int port){
+        return getInstance(hostname, port, null);
+    }
+
+    /**
+     * NOTE: Use ClientFactory.getClient method to instantiate the client in the Jenkins Plugin
+     * This method is not recommended to be used because it misses some validations.
+     * @param hostname - target hostname
+     * @param port - target port
+     * @param socketPath - path of the target Unix domain socket, used instead of the hostname and port when set
+     * @return an singleton instance of the DogStatsDClient.
+     */
+    public static DatadogClient getInstance(String hostname, int port, String socketPath){
         if(enableValidations){
-            if (hostname == null || hostname.isEmpty()) {
+            if ((hostname == null || hostname.isEmpty()) && socketPath == null) {
                 logger.severe("Datadog Target URL is not set properly");
                 throw new RuntimeException("Datadog Target URL is not set properly");
             }
@@ -71,79 +124,67 @@ public class DogStatsDClient implements DatadogClient {
         if(instance == null){
             synchronized (DatadogHttpClient.class) {
                 if(instance == null){
-                    instance = new DogStatsDClient( hostname, port);
+                    instance = new DogStatsDClient(hostname, port, socketPath);
                 }
             }
         }
 
-        // We reset param just in case we change values
-        if(!hostname.equals(((DogStatsDClient)instance).getHostname()) ||
-                ((DogStatsDClient)instance).getPort() != port) {
-            instance.setHostname(hostname);
-            instance.setPort(port);
-            ((DogStatsDClient)instance).reinitialize(true);
-        }
+        // We reset param just in case we change values, the connection is opened again in the background
+        ((DogStatsDClient)instance).setTarget(hostname, port, socketPath);
         return instance;
     }
 
-    private DogStatsDClient(String hostname, Integer port) {
+    private DogStatsDClient(String hostname, Integer port, String socketPath) {
         this.hostname = hostname;
         this.port = port;
-
-        reinitialize(true);
+        this.socketPath = socketPath;
+        this.disconnectedPolicy = getDisconnectedPolicyProperty();
+        this.connection = new DogStatsDConnection(hostname, port, socketPath, errorHandler);
     }
 
-    /**
-     * reinitialize the dogStasDClient
-     * @param force - force to reinitialize
-     * @return true if reinitialized properly otherwise false
-     */
-    private boolean reinitialize(boolean force) {
-        try {
-            if(!this.isStopped && this.statsd != null && !force){
-                return true;
+    private static DisconnectedPolicy getDisconnectedPolicyProperty() {
+        String value = System.getProperty(PROPERTY_PREFIX + ".disconnectedPolicy");
+        if (value != null) {
+            try {
+                return DisconnectedPolicy.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warning("Unknown disconnected policy " + value + ", using " + DisconnectedPolicy.BUFFER);
             }
-            this.stop();
-            logger.severe("Re/Initialize DogStatsD Client: hostname: " + this.hostname + " port = " + this.port);
-            this.statsd = new NonBlockingStatsDClient(null, this.hostname, this.port);
-            this.isStopped = false;
-        } catch (Exception e){
-            logger.severe("Failed to reinitialize DogStatsD Client: " + e);
-            this.stop();
         }
-        return !isStopped;
+        return DisconnectedPolicy.BUFFER;
     }
 
-    private boolean stop(){
-        if (this.statsd != null){
-            try{
-                this.statsd.stop();
-            }catch(Exception ex){
-                logger.severe("Failed to stop DogStatsD Client: " + ex);
-                return false;
-            }
-            this.statsd = null;
-        }
-        this.isStopped = true;
-        return true;
+    private synchronized void setTarget(String hostname, int port, String socketPath) {
+        this.hostname = hostname;
+        this.port = port;
+        this.socketPath = socketPath;
+        connection.setTarget(hostname, port, socketPath);
     }
 
-    public String getHostname() {
+    public synchronized String getHostname() {
         return hostname;
     }
 
     @Override
     public void setHostname(String hostname) {
-        this.hostname = hostname;
+        setTarget(hostname, getPort(), getSocketPath());
     }
 
-    public int getPort() {
+    public synchronized int getPort() {
         return port;
     }
 
     @Override
     public void setPort(int port) {
-        this.port = port;
+        setTarget(getHostname(), port, getSocketPath());
+    }
+
+    public synchronized String getSocketPath() {
+        return socketPath;
+    }
+
+    public void setSocketPath(String socketPath) {
+        setTarget(getHostname(), getPort(), socketPath);
     }
 
     @Override
@@ -158,8 +199,8 @@ public class DogStatsDClient implements DatadogClient {
 
     @Override
     public boolean event(DatadogEvent event) {
+        DogStatsDConnection.Session session = connection.get();
         try {
-            reinitialize(false);
             logger.fine("Sending event");
             Event ev = Event.builder()
                     .withTitle(event.getTitle())
@@ -170,66 +211,210 @@ public class DogStatsDClient implements DatadogClient {
                     .withAggregationKey(event.getAggregationKey())
                     .withSourceTypeName("jenkins")
                     .build();
-            this.statsd.recordEvent(ev, TagsUtil.convertTagsToArray(event.getTags()));
+            String[] tags = TagSet.of(event.getTags()).toArray();
+            if (session == null) {
+                return pending(pendingEvents, ev, pendingEventTags, tags);
+            }
+            session.getStatsd().recordEvent(ev, tags);
             return true;
         } catch(Exception e){
-            logger.severe("An unexpected error occurred: " + e);
-            reinitialize(true);
+            logger.warning("An unexpected error occurred: " + e);
             return false;
         }
     }
 
     @Override
     public void incrementCounter(String name, String hostname, Map<String, Set<String>> tags) {
-        try {
-            reinitialize(false);
-            logger.fine("increment counter with dogStatD client");
-            this.statsd.incrementCounter(name, TagsUtil.convertTagsToArray(tags));
-        } catch(Exception e){
-            logger.severe("An unexpected error occurred: " + e);
-            reinitialize(true);
-        }
+        // Counters are summed and submitted when flushed
+        ConcurrentMetricCounters.getInstance().increment(name, hostname, tags);
     }
 
     @Override
-    public void flushCounters() {
-        return; //noop
+    public void incrementCounter(String name, long value, String hostname, Map<String, Set<String>> tags) {
+        ConcurrentMetricCounters.getInstance().add(name, value, hostname, tags);
     }
 
     @Override
-    public boolean gauge(String name, long value, String hostname, Map<String, Set<String>> tags) {
+    public void flushCounters() {
+        DogStatsDConnection.Session session = connection.get();
+        if (session == null) {
+            if (disconnectedPolicy == DisconnectedPolicy.DROP) {
+                dropAggregates();
+            }
+            // Otherwise metrics keep being aggregated until connected
+            return;
+        }
         try {
-            reinitialize(false);
-            logger.fine("Submit gauge with dogStatD client");
-            this.statsd.gauge(name, value, TagsUtil.convertTagsToArray(tags));
-            return true;
+            logger.fine("Run flushCounters method");
+            DogStatsDPacketBuilder packets = session.getPackets();
+            sendPending(session);
+
+            ConcurrentMap<CounterMetric, Integer> counters = ConcurrentMetricCounters.getInstance().getAndReset();
+            for (CounterMetric counterMetric : counters.keySet()) {
+                MetricKey key = counterMetric.getKey();
+                packets.add(metricLine(key, Integer.toString(counters.get(counterMetric)), "c"));
+            }
+
+            // Only the last value of each gauge is submitted
+            for (GaugeAggregator.Sample sample : gauges.drain()) {
+                packets.add(metricLine(sample.getKey(), Long.toString(sample.getValue()), "g"));
+            }
+
+            // The Agent builds its own sketches, each bin is sent once with the sample rate its count weights it by
+            for (DistributionAggregator.Sample sample : distributions.drain()) {
+                MetricKey key = sample.getKey();
+                for (QuantileSketch.Bin bin : sample.getSketch().getBins()) {
+                    packets.add(distributionLine(key, bin.getValue(), bin.getCount()));
+                }
+            }
+            packets.flush();
+        } catch(IOException e){
+            connection.failed(session, e);
         } catch(Exception e){
-            logger.severe("An unexpected error occurred: " + e);
-            reinitialize(true);
+            logger.warning("An unexpected error occurred: " + e);
+        }
+    }
+
+    private void dropAggregates() {
+        long dropped = ConcurrentMetricCounters.getInstance().getAndReset().size();
+        dropped += gauges.drain().size();
+        dropped += distributions.drain().size();
+        if (dropped > 0) {
+            PluginMetrics.add(DROPPED_METRIC, dropped);
+        }
+    }
+
+    /**
+     * Keeps an item while disconnected, according to the policy. The oldest item is dropped when full.
+     */
+    private <A, B> boolean pending(Deque<A> items, A item, Deque<B> details, B detail) {
+        if (disconnectedPolicy == DisconnectedPolicy.DROP) {
+            PluginMetrics.increment(DROPPED_METRIC);
             return false;
         }
+        synchronized (items) {
+            if (items.size() >= MAX_PENDING) {
+                items.pollFirst();
+                if (details != null) {
+                    details.pollFirst();
+                }
+                PluginMetrics.increment(DROPPED_METRIC);
+            }
+            items.addLast(item);
+            if (details != null) {
+                details.addLast(detail);
+            }
+        }
+        return true;
+    }
+
+    private void sendPending(DogStatsDConnection.Session session) throws IOException {
+        synchronized (pendingEvents) {
+            while (!pendingEvents.isEmpty()) {
+                session.getStatsd().recordEvent(pendingEvents.pollFirst(), pendingEventTags.pollFirst());
+            }
+        }
+        synchronized (pendingServiceChecks) {
+            while (!pendingServiceChecks.isEmpty()) {
+                session.getPackets().add(pendingServiceChecks.pollFirst());
+            }
+        }
+    }
+
+    @Override
+    public boolean gauge(String name, long value, String hostname, Map<String, Set<String>> tags) {
+        // Gauges are aggregated and submitted along with the counters
+        gauges.set(name, value, hostname, tags);
+        return true;
+    }
+
+    @Override
+    public boolean distribution(String name, double value, String hostname, Map<String, Set<String>> tags) {
+        // Distributions are aggregated and submitted along with the counters
+        distributions.add(name, value, hostname, tags);
+        return true;
     }
 
     @Override
     public boolean serviceCheck(String name, Status status, String hostname, Map<String, Set<String>> tags) {
+        DogStatsDConnection.Session session = connection.get();
         try {
-            reinitialize(false);
             logger.fine(String.format("Sending service check '%s' with status %s", name, status));
 
-            ServiceCheck sc = ServiceCheck.builder()
-                    .withName(name)
-                    .withStatus(status.toServiceCheckStatus())
-                    .withHostname(hostname)
-                    .withTags(TagsUtil.convertTagsToArray(tags)).build();
-            this.statsd.serviceCheck(sc);
+            StringBuilder line = new StringBuilder("_sc|").append(name).append('|').append(status.toValue());
+            if (hostname != null) {
+                line.append("|h:").append(hostname);
+            }
+            line.append(TagSet.of(tags).getDogStatsDTags());
+            if (session == null) {
+                return pending(pendingServiceChecks, line.toString(), null, null);
+            }
+            if (session.getPackets().add(line.toString())) {
+                scheduleLingerFlush();
+            }
             return true;
+        } catch(IOException e){
+            connection.failed(session, e);
+            return false;
         } catch(Exception e){
-            logger.severe("An unexpected error occurred: " + e);
-            reinitialize(true);
+            logger.warning("An unexpected error occurred: " + e);
             return false;
         }
     }
 
+    /**
+     * Service checks are sent one at a time, they are packed with the ones submitted shortly after them.
+     */
+    private void scheduleLingerFlush() {
+        if (!lingering.compareAndSet(false, true)) {
+            return;
+        }
+        Timer.get().schedule(new Runnable() {
+            @Override
+            public void run() {
+                lingering.set(false);
+                DogStatsDConnection.Session session = connection.get();
+                if (session == null) {
+                    return;
+                }
+                try {
+                    session.getPackets().flush();
+                } catch (IOException e) {
+                    connection.failed(session, e);
+                }
+            }
+        }, Long.getLong(PROPERTY_PREFIX + ".packetLingerMillis", DEFAULT_PACKET_LINGER_MILLIS), TimeUnit.MILLISECONDS);
+    }
+
+    static String metricLine(MetricKey key, String value, String type) {
+        return key.getMetricName() + ':' + value + '|' + type + key.getTagSet().getDogStatsDTags();
+    }
+
+    /**
+     * @param key   - the key of the distribution
+     * @param value - the value
+     * @param count - the number of times the value was counted
+     * @return the DogStatsD line of the value, sampled at 1/count so that the Agent counts it count times.
+     */
+    static String distributionLine(MetricKey key, double value, long count) {
+        if (count <= 1) {
+            return metricLine(key, formatValue(value), "d");
+        }
+        double sampleRate = 1.0 / count;
+        if ((long) (1 / sampleRate) < count) {
+            // The Agent truncates the inverse of the sample rate, it must not be rounded below the count
+            sampleRate = Math.nextDown(sampleRate);
+        }
+        return metricLine(key, formatValue(value), "d|@" + sampleRate);
+    }
+
+    static String formatValue(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
     @Override
     public boolean validate() throws IOException, ServletException {
         return true;
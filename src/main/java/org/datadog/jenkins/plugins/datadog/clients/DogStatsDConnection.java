@@ -0,0 +1,334 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import com.timgroup.statsd.NonBlockingStatsDClient;
+import com.timgroup.statsd.StatsDClient;
+import com.timgroup.statsd.StatsDClientErrorHandler;
+import jenkins.util.Timer;
+import jnr.unixsocket.UnixDatagramChannel;
+import jnr.unixsocket.UnixSocketAddress;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Manages the connection of the {@link DogStatsDClient} to a DogStatsD server.
+ *
+ * Connections are opened on the Jenkins timer, never on the threads submitting data. When a connection
+ * fails, or when it can't be opened, it is opened again in the background after a delay which doubles
+ * with each consecutive failure, with a random jitter so that reconnections are spread out.
+ */
+public class DogStatsDConnection {
+
+    private static final Logger logger = Logger.getLogger(DogStatsDConnection.class.getName());
+    private static final String PROPERTY_PREFIX = DogStatsDClient.class.getName();
+
+    private static final long MIN_RECONNECT_DELAY_MILLIS = 1000;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final StatsDClientErrorHandler errorHandler;
+    private final ScheduledExecutorService executor;
+
+    // Guarded by this
+    private String hostname;
+    private int port;
+    private String socketPath;
+    private int failures = 0;
+    // Id of the scheduled reconnection, 0 if none is scheduled
+    private long pendingReconnect = 0;
+    private long lastReconnect = 0;
+    private long reconnectDelayMillis = -1;
+    private ScheduledFuture<?> reconnectFuture;
+
+    private volatile Session session;
+
+    /**
+     * @param hostname     - target hostname
+     * @param port         - target port
+     * @param socketPath   - path of the target Unix domain socket, used instead of the hostname and port when set
+     * @param errorHandler - called by the DogStatsD client thread when an event can't be sent
+     */
+    public DogStatsDConnection(String hostname, int port, String socketPath, StatsDClientErrorHandler errorHandler) {
+        this(hostname, port, socketPath, errorHandler, Timer.get());
+    }
+
+    DogStatsDConnection(String hostname, int port, String socketPath, StatsDClientErrorHandler errorHandler,
+                        ScheduledExecutorService executor) {
+        this.hostname = hostname;
+        this.port = port;
+        this.socketPath = socketPath;
+        this.errorHandler = errorHandler;
+        this.executor = executor;
+        scheduleReconnect(0);
+    }
+
+    /**
+     * @return the current session, null while disconnected.
+     */
+    public Session get() {
+        return session;
+    }
+
+    /**
+     * Changes the target of the connection. The current session is closed and a new one is opened in the
+     * background, if the target changed.
+     *
+     * @param hostname   - target hostname
+     * @param port       - target port
+     * @param socketPath - path of the target Unix domain socket, used instead of the hostname and port when set
+     */
+    public synchronized void setTarget(String hostname, int port, String socketPath) {
+        if (isTarget(hostname, port, socketPath)) {
+            return;
+        }
+        this.hostname = hostname;
+        this.port = port;
+        this.socketPath = socketPath;
+        this.failures = 0;
+        closeSession();
+        // A reconnection waiting for its backoff delay would still target the previous server
+        if (pendingReconnect != 0) {
+            reconnectFuture.cancel(false);
+            pendingReconnect = 0;
+        }
+        scheduleReconnect(0);
+    }
+
+    /**
+     * Reports a session which failed, it is closed and a new one is opened in the background.
+     *
+     * @param failed - the session which failed
+     * @param e      - the failure
+     */
+    public synchronized void failed(Session failed, Exception e) {
+        if (session != failed) {
+            // Already replaced
+            return;
+        }
+        logger.warning("DogStatsD connection failed, reconnecting - " + e.getMessage());
+        closeSession();
+        failures++;
+        scheduleReconnect(getReconnectDelay());
+    }
+
+    private void closeSession() {
+        final Session current = session;
+        session = null;
+        if (current != null) {
+            // Stopping the DogStatsD client waits for its thread, it is done in the background
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    current.close();
+                }
+            });
+        }
+    }
+
+    private long getReconnectDelay() {
+        return getReconnectDelay(failures);
+    }
+
+    /**
+     * @param failures - the number of consecutive failures
+     * @return the delay before the next reconnection, in milliseconds.
+     */
+    static long getReconnectDelay(int failures) {
+        long delay = Math.min(MAX_RECONNECT_DELAY_MILLIS, MIN_RECONNECT_DELAY_MILLIS << Math.min(failures, 16));
+        // Half of the delay is randomized
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private synchronized void scheduleReconnect(long delayMillis) {
+        if (pendingReconnect != 0) {
+            return;
+        }
+        final long id = ++lastReconnect;
+        pendingReconnect = id;
+        reconnectDelayMillis = delayMillis;
+        reconnectFuture = executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                connect(id);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized int getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return the delay of the scheduled reconnection, in milliseconds, -1 if none is scheduled.
+     */
+    synchronized long getReconnectDelayMillis() {
+        return pendingReconnect != 0 ? reconnectDelayMillis : -1;
+    }
+
+    private void connect(long id) {
+        String hostname;
+        int port;
+        String socketPath;
+        synchronized (this) {
+            if (pendingReconnect != id) {
+                // Cancelled
+                return;
+            }
+            pendingReconnect = 0;
+            if (session != null) {
+                return;
+            }
+            hostname = this.hostname;
+            port = this.port;
+            socketPath = this.socketPath;
+        }
+        Session opened = null;
+        try {
+            opened = open(hostname, port, socketPath);
+        } catch (Exception e) {
+            synchronized (this) {
+                if (!isTarget(hostname, port, socketPath)) {
+                    // The target changed while connecting, the new one is being connected to
+                    return;
+                }
+                failures++;
+                long delay = getReconnectDelay();
+                String message = "Unable to connect to DogStatsD, retrying in " + delay + "ms - " + e.getMessage();
+                if (failures == 1) {
+                    logger.warning(message);
+                } else {
+                    logger.fine(message);
+                }
+                scheduleReconnect(delay);
+            }
+            return;
+        }
+        synchronized (this) {
+            if (session == null && isTarget(hostname, port, socketPath)) {
+                session = opened;
+                failures = 0;
+                logger.info("Connected to DogStatsD: " + (socketPath != null ? socketPath : hostname + ":" + port));
+                return;
+            }
+        }
+        // The target changed while connecting
+        opened.close();
+    }
+
+    private Session open(String hostname, int port, String socketPath) throws IOException {
+        StatsDClient statsd = null;
+        DatagramChannel channel = null;
+        try {
+            int maxPayloadSize;
+            if (socketPath != null) {
+                // A port of 0 makes the client send its datagrams to the Unix domain socket at the given path
+                statsd = new NonBlockingStatsDClient(null, socketPath, 0, new String[0], errorHandler);
+                UnixDatagramChannel unixChannel = UnixDatagramChannel.open();
+                channel = unixChannel;
+                unixChannel.connect(new UnixSocketAddress(new File(socketPath)));
+                maxPayloadSize = DogStatsDPacketBuilder.DEFAULT_UDS_MAX_PAYLOAD_SIZE;
+            } else {
+                statsd = new NonBlockingStatsDClient(null, hostname, port, new String[0], errorHandler);
+                channel = DatagramChannel.open();
+                channel.connect(new InetSocketAddress(hostname, port));
+                maxPayloadSize = DogStatsDPacketBuilder.DEFAULT_UDP_MAX_PAYLOAD_SIZE;
+            }
+            // Packets that don't fit in the socket buffer are dropped rather than blocking
+            channel.configureBlocking(false);
+            DogStatsDPacketBuilder packets = new DogStatsDPacketBuilder(channel,
+                    Integer.getInteger(PROPERTY_PREFIX + ".maxPacketSize", maxPayloadSize));
+            return new Session(statsd, channel, packets);
+        } catch (IOException | RuntimeException e) {
+            new Session(statsd, channel, null).close();
+            throw e;
+        }
+    }
+
+    private synchronized boolean isTarget(String hostname, int port, String socketPath) {
+        return equals(this.hostname, hostname) && this.port == port && equals(this.socketPath, socketPath);
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * An open connection: events are sent by the DogStatsD client, metrics and service checks are packed
+     * by the packet builder.
+     */
+    public static final class Session {
+
+        private final StatsDClient statsd;
+        private final DatagramChannel channel;
+        private final DogStatsDPacketBuilder packets;
+
+        private Session(StatsDClient statsd, DatagramChannel channel, DogStatsDPacketBuilder packets) {
+            this.statsd = statsd;
+            this.channel = channel;
+            this.packets = packets;
+        }
+
+        public StatsDClient getStatsd() {
+            return statsd;
+        }
+
+        public DogStatsDPacketBuilder getPackets() {
+            return packets;
+        }
+
+        private void close() {
+            if (packets != null) {
+                try {
+                    packets.flush();
+                } catch (IOException e) {
+                    // Dropped and counted
+                }
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.fine("Failed to close DogStatsD channel: " + e);
+                }
+            }
+            if (statsd != null) {
+                try {
+                    statsd.stop();
+                } catch (Exception e) {
+                    logger.fine("Failed to stop DogStatsD Client: " + e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * Packs DogStatsD lines, separated by newlines, into datagrams of up to a maximum payload size, so that a
+ * burst of metrics is sent as a few packets instead of one packet per metric.
+ *
+ * A packet is written when the next line doesn't fit in it, or when {@link #flush()} is called. Packets are
+ * written from a single direct buffer which is reused. The packets and bytes written are reported by the
+ * {@link #PACKETS_METRIC} and {@link #BYTES_METRIC} metrics, the packets that can't be written, e.g. when
+ * the socket buffer is full, by the {@link DogStatsDClient#DROPPED_METRIC} metric. Other write errors are
+ * thrown, they mean that the connection must be opened again.
+ */
+public class DogStatsDPacketBuilder {
+
+    public static final String PACKETS_METRIC = "jenkins.datadog.dogstatsd.packets";
+    public static final String BYTES_METRIC = "jenkins.datadog.dogstatsd.bytes";
+
+    // Largest UDP payload which is not fragmented on an Ethernet network
+    public static final int DEFAULT_UDP_MAX_PAYLOAD_SIZE = 1432;
+    public static final int DEFAULT_UDS_MAX_PAYLOAD_SIZE = 8192;
+
+    private static final Logger logger = Logger.getLogger(DogStatsDPacketBuilder.class.getName());
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * @param channel        - a connected channel, writing a buffer sends it as a single datagram
+     * @param maxPayloadSize - maximum size of a datagram, in bytes
+     */
+    public DogStatsDPacketBuilder(WritableByteChannel channel, int maxPayloadSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(maxPayloadSize);
+    }
+
+    /**
+     * Adds a line to the current packet, the packet is written first if the line doesn't fit in it.
+     *
+     * @param line - a DogStatsD line, without a trailing newline
+     * @return true if the line is the first one of a new packet.
+     * @throws IOException if the current packet had to be written and could not be.
+     */
+    public synchronized boolean add(String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int size = buffer.position() == 0 ? bytes.length : bytes.length + 1;
+        if (size > buffer.remaining()) {
+            flush();
+            if (bytes.length > buffer.capacity()) {
+                PluginMetrics.increment(DogStatsDClient.DROPPED_METRIC);
+                logger.fine("Dropped a DogStatsD line of " + bytes.length + " bytes, larger than a packet");
+                return false;
+            }
+        }
+        boolean first = buffer.position() == 0;
+        if (!first) {
+            buffer.put((byte) '\n');
+        }
+        buffer.put(bytes);
+        return first;
+    }
+
+    /**
+     * Writes the current packet, if any. The packet is dropped if it can't be written.
+     *
+     * @throws IOException if the channel is closed or the target is not reachable anymore.
+     */
+    public synchronized void flush() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        try {
+            int written = channel.write(buffer);
+            if (written == 0) {
+                // Non blocking channel whose socket buffer is full
+                PluginMetrics.increment(DogStatsDClient.DROPPED_METRIC);
+            } else {
+                PluginMetrics.increment(PACKETS_METRIC);
+                PluginMetrics.add(BYTES_METRIC, written);
+            }
+        } catch (IOException e) {
+            PluginMetrics.increment(DogStatsDClient.DROPPED_METRIC);
+            logger.fine("Dropped a DogStatsD packet - " + e.getMessage());
+            throw e;
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    public int getMaxPayloadSize() {
+        return buffer.capacity();
+    }
+}
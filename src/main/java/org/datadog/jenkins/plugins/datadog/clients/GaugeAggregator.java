@@ -0,0 +1,114 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the last value of each gauge until it is flushed, so that a series emitted several times
+ * within a flush interval is submitted as a single point.
+ *
+ * Gauges are keyed by their interned {@link MetricKey}. A value set while the aggregator is drained
+ * is either part of the drained samples or kept for the next flush, it is never lost.
+ */
+public class GaugeAggregator {
+
+    public static final String RECEIVED_METRIC = "jenkins.datadog.aggregator.gauges.received";
+    public static final String FLUSHED_METRIC = "jenkins.datadog.aggregator.gauges.flushed";
+
+    private final ConcurrentMap<MetricKey, Sample> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Records the current value of a gauge, replacing the value recorded since the last flush.
+     *
+     * @param name     - the metric name
+     * @param value    - the current value
+     * @param hostname - the hostname, may be null
+     * @param tags     - the tags, may be null
+     */
+    public void set(String name, long value, String hostname, Map<String, Set<String>> tags) {
+        MetricKey key = MetricKey.of(name, hostname, tags);
+        gauges.put(key, new Sample(key, value, System.currentTimeMillis() / 1000));
+        PluginMetrics.increment(RECEIVED_METRIC);
+    }
+
+    public int size() {
+        return gauges.size();
+    }
+
+    /**
+     * Removes the gauges recorded since the last flush.
+     *
+     * @return the last value of each gauge, with the series it belongs to.
+     */
+    public List<Sample> drain() {
+        List<Sample> samples = new ArrayList<>(gauges.size());
+        for (Map.Entry<MetricKey, Sample> entry : gauges.entrySet()) {
+            // Only remove the value we read, a newer one is kept for the next flush
+            if (gauges.remove(entry.getKey(), entry.getValue())) {
+                samples.add(entry.getValue());
+            }
+        }
+        PluginMetrics.add(FLUSHED_METRIC, samples.size());
+        return samples;
+    }
+
+    /**
+     * The last value of a gauge, and the time it was recorded at.
+     */
+    public static class Sample {
+
+        private final MetricKey key;
+        private final long value;
+        private final long timestamp;
+
+        private Sample(MetricKey key, long value, long timestamp) {
+            this.key = key;
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+
+        public MetricKey getKey() {
+            return key;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        /**
+         * @return the time the value was recorded at, in seconds.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
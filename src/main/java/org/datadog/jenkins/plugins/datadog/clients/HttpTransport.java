@@ -0,0 +1,242 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import hudson.ProxyConfiguration;
+import jenkins.model.Jenkins;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.Credentials;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultRoutePlanner;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Shared HTTP transport used to talk to the Datadog API. Connections are kept alive in a pool so
+ * that consecutive requests don't pay for a new TCP and TLS handshake. Supports the Jenkins
+ * configured proxy.
+ *
+ * The pool can be tuned with the following system properties:
+ * - org.datadog.jenkins.plugins.datadog.clients.HttpTransport.maxPerRoute
+ * - org.datadog.jenkins.plugins.datadog.clients.HttpTransport.idleTimeoutSeconds
+ */
+public class HttpTransport {
+
+    private static final Logger logger = Logger.getLogger(HttpTransport.class.getName());
+    private static final String PROPERTY_PREFIX = HttpTransport.class.getName();
+
+    private static final int DEFAULT_MAX_PER_ROUTE = 4;
+    private static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 30;
+
+    /* Timeout of 1 minutes for connecting and reading.
+     * this prevents this plugin from causing jobs to hang in case of
+     * flaky network or Datadog being down. Left intentionally long.
+     */
+    private static final int TIMEOUT_MS = 1 * 60 * 1000;
+
+    private static HttpTransport instance;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    public static HttpTransport getInstance() {
+        if(instance == null){
+            synchronized (HttpTransport.class) {
+                if(instance == null){
+                    instance = new HttpTransport(
+                            Integer.getInteger(PROPERTY_PREFIX + ".maxPerRoute", DEFAULT_MAX_PER_ROUTE),
+                            Long.getLong(PROPERTY_PREFIX + ".idleTimeoutSeconds", DEFAULT_IDLE_TIMEOUT_SECONDS));
+                }
+            }
+        }
+        return instance;
+    }
+
+    private HttpTransport(int maxPerRoute, long idleTimeoutSeconds) {
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        this.connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        // Datadog API and its proxy are the only routes we know of
+        this.connectionManager.setMaxTotal(maxPerRoute * 2);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(TIMEOUT_MS)
+                .setSocketTimeout(TIMEOUT_MS)
+                .setConnectionRequestTimeout(TIMEOUT_MS)
+                .build();
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setRoutePlanner(new JenkinsProxyRoutePlanner())
+                .setDefaultCredentialsProvider(new JenkinsProxyCredentialsProvider())
+                .disableCookieManagement()
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeoutSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Sends a POST request.
+     *
+     * @param url    - the target URL
+     * @param entity - the request body
+     * @return the response status code and body
+     * @throws IOException if the request fails.
+     */
+    public Response post(String url, HttpEntity entity) throws IOException {
+        HttpPost request = new HttpPost(url);
+        request.setEntity(entity);
+        return execute(request);
+    }
+
+    /**
+     * Sends a GET request.
+     *
+     * @param url - the target URL
+     * @return the response status code and body
+     * @throws IOException if the request fails.
+     */
+    public Response get(String url) throws IOException {
+        return execute(new HttpGet(url));
+    }
+
+    private Response execute(HttpUriRequest request) throws IOException {
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            // The entity must be fully consumed for the connection to go back to the pool
+            HttpEntity entity = response.getEntity();
+            String body = entity == null ? "" : EntityUtils.toString(entity, StandardCharsets.UTF_8);
+            return new Response(response.getStatusLine().getStatusCode(), body);
+        }
+    }
+
+    public static class Response {
+
+        private final int statusCode;
+        private final String body;
+
+        Response(int statusCode, String body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public boolean isSuccessful() {
+            return statusCode >= 200 && statusCode < 300;
+        }
+    }
+
+    private static ProxyConfiguration getProxyConfiguration() {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return null;
+        }
+        return jenkins.proxy;
+    }
+
+    /**
+     * Routes requests through the Jenkins proxy, if one is configured and the target host
+     * is not excluded from it. The configuration is checked on every request, so changes
+     * are taken into account without having to rebuild the pool.
+     */
+    private static class JenkinsProxyRoutePlanner extends DefaultRoutePlanner {
+
+        JenkinsProxyRoutePlanner() {
+            super(DefaultSchemePortResolver.INSTANCE);
+        }
+
+        @Override
+        protected HttpHost determineProxy(HttpHost target, HttpRequest request, HttpContext context) throws HttpException {
+            ProxyConfiguration proxyConfig = getProxyConfiguration();
+            if (proxyConfig == null) {
+                logger.fine("Jenkins proxy configuration not found");
+                return null;
+            }
+            Proxy proxy = proxyConfig.createProxy(target.getHostName());
+            if (proxy != null && proxy.type() == Proxy.Type.HTTP && proxy.address() instanceof InetSocketAddress) {
+                logger.fine("Attempting to use the Jenkins proxy configuration");
+                InetSocketAddress address = (InetSocketAddress) proxy.address();
+                return new HttpHost(address.getHostString(), address.getPort());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Provides the Jenkins proxy credentials, if any, when the proxy requires authentication.
+     */
+    private static class JenkinsProxyCredentialsProvider implements CredentialsProvider {
+
+        @Override
+        public void setCredentials(AuthScope authscope, Credentials credentials) {
+            // noop
+        }
+
+        @Override
+        public Credentials getCredentials(AuthScope authscope) {
+            ProxyConfiguration proxyConfig = getProxyConfiguration();
+            if (proxyConfig == null || proxyConfig.getUserName() == null || proxyConfig.name == null) {
+                return null;
+            }
+            if (authscope.getHost() != null && !authscope.getHost().equalsIgnoreCase(proxyConfig.name)) {
+                return null;
+            }
+            return new UsernamePasswordCredentials(proxyConfig.getUserName(), proxyConfig.getPassword());
+        }
+
+        @Override
+        public void clear() {
+            // noop
+        }
+    }
+}
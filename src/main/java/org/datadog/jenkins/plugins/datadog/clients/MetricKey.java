@@ -0,0 +1,207 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.datadog.jenkins.plugins.datadog.util.LruCache;
+import org.datadog.jenkins.plugins.datadog.util.TagSet;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The identity of a metric series: name, hostname and tags. Keys are immutable, tags are sorted and
+ * the hash is computed once, so keys are cheap to compare and to look up.
+ *
+ * Keys are interned: repeated emissions of the same series share a single key object, whose
+ * {@link TagSet} caches the serialized forms of the tags. Keys are looked up by tag set, then by name
+ * and hostname, so that a repeated emission allocates nothing and only uses cached hash codes.
+ * The keys of the most recently used tag sets are kept.
+ */
+public final class MetricKey {
+
+    private static final int MAX_INTERNED_TAG_SETS = 10000;
+    private static final LruCache<TagSet, ConcurrentMap<String, ConcurrentMap<String, MetricKey>>> interned =
+            new LruCache<>(MAX_INTERNED_TAG_SETS);
+    // Stands for a null hostname in the interning table, hostnames can't hold a NUL character
+    private static final String NO_HOSTNAME = "\u0000";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String metricName;
+    private final String hostname;
+    private final TagSet tags;
+    private final long hash;
+
+    private MetricKey(String metricName, String hostname, TagSet tags) {
+        this.metricName = metricName;
+        this.hostname = hostname;
+        this.tags = tags;
+        this.hash = computeHash(metricName, hostname, tags);
+    }
+
+    /**
+     * @param metricName - the metric name
+     * @param hostname   - the hostname, may be null
+     * @param tags       - the tags, may be null
+     * @return the canonical key of the series.
+     */
+    public static MetricKey of(String metricName, String hostname, Map<String, Set<String>> tags) {
+        TagSet tagSet = TagSet.of(tags);
+        if (metricName == null) {
+            return new MetricKey(null, hostname, tagSet);
+        }
+        String host = hostname == null ? NO_HOSTNAME : hostname;
+        ConcurrentMap<String, ConcurrentMap<String, MetricKey>> byName = interned.get(tagSet);
+        if (byName != null) {
+            ConcurrentMap<String, MetricKey> byHostname = byName.get(metricName);
+            if (byHostname != null) {
+                MetricKey key = byHostname.get(host);
+                if (key != null) {
+                    return key;
+                }
+            }
+        }
+        return intern(new MetricKey(metricName, hostname, tagSet), host);
+    }
+
+    private static MetricKey intern(MetricKey key, String host) {
+        ConcurrentMap<String, ConcurrentMap<String, MetricKey>> byName = interned.get(key.tags);
+        if (byName == null) {
+            byName = new ConcurrentHashMap<>();
+            ConcurrentMap<String, ConcurrentMap<String, MetricKey>> existing = interned.putIfAbsent(key.tags, byName);
+            if (existing != null) {
+                byName = existing;
+            }
+        }
+        ConcurrentMap<String, MetricKey> byHostname = byName.get(key.metricName);
+        if (byHostname == null) {
+            byHostname = new ConcurrentHashMap<>();
+            ConcurrentMap<String, MetricKey> existing = byName.putIfAbsent(key.metricName, byHostname);
+            if (existing != null) {
+                byHostname = existing;
+            }
+        }
+        MetricKey existing = byHostname.putIfAbsent(host, key);
+        return existing != null ? existing : key;
+    }
+
+    private static long computeHash(String metricName, String hostname, TagSet tags) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, metricName);
+        hash = hash(hash, hostname);
+        // The hash of the tags is computed once per tag set
+        hash ^= tags.getLongHash();
+        hash *= FNV_PRIME;
+        return hash;
+    }
+
+    private static long hash(long hash, String s) {
+        if (s != null) {
+            for (int i = 0; i < s.length(); i++) {
+                hash ^= s.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+        // Separator, so that ("ab", "c") and ("a", "bc") don't collide
+        hash ^= 0xFFFF;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public String getHostname() {
+        return hostname;
+    }
+
+    /**
+     * @return the sorted tags, formatted as "name:value", or "name" when the tag has no value.
+     */
+    public String[] getTags() {
+        return tags.toArray().clone();
+    }
+
+    public int getTagCount() {
+        return tags.size();
+    }
+
+    public TagSet getTagSet() {
+        return tags;
+    }
+
+    /**
+     * @return an unmodifiable copy of the tags the key was created from.
+     */
+    public Map<String, Set<String>> getTagMap() {
+        return tags.getTagMap();
+    }
+
+    /**
+     * @return the 64-bit hash of the key.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return the tags serialized as a JSON array.
+     */
+    public byte[] getJsonTags() {
+        return tags.getJsonTags();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MetricKey)) return false;
+
+        MetricKey that = (MetricKey) o;
+
+        if (hash != that.hash) return false;
+        if (metricName != null ? !metricName.equals(that.metricName) : that.metricName != null) return false;
+        if (hostname != null ? !hostname.equals(that.hostname) : that.hostname != null) return false;
+        return tags.equals(that.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "MetricKey{" +
+                "metricName='" + metricName + '\'' +
+                ", hostname='" + hostname + '\'' +
+                ", tags=" + tags +
+                '}';
+    }
+}
@@ -0,0 +1,427 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import jenkins.model.Jenkins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A durable spool for API submissions that could not be delivered. Records are appended to
+ * segment files under JENKINS_HOME/datadog-outbox and replayed, oldest first, once the Datadog API
+ * is reachable again.
+ *
+ * Each record holds the API endpoint, the time it was spooled and the (uncompressed) payload,
+ * followed by a CRC so that a record torn by a crash is detected. Segments are never modified:
+ * the replay position is kept in a separate cursor file and a segment is deleted once fully replayed.
+ *
+ * The spool is bounded with the following system properties:
+ * - org.datadog.jenkins.plugins.datadog.clients.Outbox.maxSizeMB
+ * - org.datadog.jenkins.plugins.datadog.clients.Outbox.maxAgeMinutes
+ */
+public class Outbox {
+
+    private static final Logger logger = Logger.getLogger(Outbox.class.getName());
+    private static final String PROPERTY_PREFIX = Outbox.class.getName();
+
+    public static final String SPOOLED_METRIC = "jenkins.datadog.outbox.spooled";
+    public static final String REPLAYED_METRIC = "jenkins.datadog.outbox.replayed";
+    public static final String DROPPED_METRIC = "jenkins.datadog.outbox.dropped";
+    public static final String SIZE_METRIC = "jenkins.datadog.outbox.size_bytes";
+    public static final String SEGMENTS_METRIC = "jenkins.datadog.outbox.segments";
+
+    private static final String DIRECTORY_NAME = "datadog-outbox";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CURSOR_FILE = "cursor";
+    private static final long DEFAULT_MAX_SIZE_MB = 100;
+    // The API rejects metric points older than one hour
+    private static final long DEFAULT_MAX_AGE_MINUTES = 60;
+    private static final long SEGMENT_BYTES = 4 * 1024 * 1024;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    private static volatile Outbox instance;
+
+    private final File directory;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final long segmentBytes;
+
+    private long nextSegment;
+    private File activeSegment;
+    private DataOutputStream activeOut;
+    private long activeBytes;
+
+    // Replay position in the oldest segment
+    private String cursorSegment;
+    private long cursorOffset;
+
+    /**
+     * Sends a spooled record to the Datadog API.
+     */
+    public static interface Sender {
+        /**
+         * @param type    - the API endpoint
+         * @param payload - the payload
+         * @return false if the record could not be sent and should be retried later.
+         */
+        boolean send(String type, byte[] payload);
+    }
+
+    /**
+     * @return the outbox stored in JENKINS_HOME, or null if Jenkins is not running.
+     */
+    public static Outbox getInstance() {
+        if (instance == null) {
+            synchronized (Outbox.class) {
+                Jenkins jenkins = Jenkins.getInstance();
+                if (instance == null && jenkins != null) {
+                    instance = new Outbox(new File(jenkins.getRootDir(), DIRECTORY_NAME),
+                            Long.getLong(PROPERTY_PREFIX + ".maxSizeMB", DEFAULT_MAX_SIZE_MB) * 1024 * 1024,
+                            TimeUnit.MINUTES.toMillis(Long.getLong(PROPERTY_PREFIX + ".maxAgeMinutes", DEFAULT_MAX_AGE_MINUTES)),
+                            SEGMENT_BYTES);
+                }
+            }
+        }
+        return instance;
+    }
+
+    Outbox(File directory, long maxBytes, long maxAgeMillis, long segmentBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.segmentBytes = segmentBytes;
+
+        List<File> segments = listSegments();
+        // Never append to segments written before a restart, their tail may be torn
+        nextSegment = segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+        readCursor();
+        updateMetrics();
+    }
+
+    /**
+     * Appends a submission to the spool.
+     *
+     * @param type    - the API endpoint
+     * @param payload - the uncompressed payload
+     * @return true if the submission was spooled.
+     */
+    public synchronized boolean append(String type, byte[] payload) {
+        try {
+            if (activeOut == null || activeBytes >= segmentBytes) {
+                roll();
+            }
+            byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+            long timestamp = System.currentTimeMillis();
+            CRC32 crc = new CRC32();
+            crc.update(typeBytes);
+            crc.update(payload);
+
+            activeOut.writeShort(typeBytes.length);
+            activeOut.write(typeBytes);
+            activeOut.writeLong(timestamp);
+            activeOut.writeInt(payload.length);
+            activeOut.write(payload);
+            activeOut.writeLong(crc.getValue());
+            activeOut.flush();
+            activeBytes += 2 + typeBytes.length + 8 + 4 + payload.length + 8;
+
+            PluginMetrics.increment(SPOOLED_METRIC);
+            enforceRetention();
+            return true;
+        } catch (IOException e) {
+            logger.severe("Failed to spool a submission to " + directory + " - " + e.getMessage());
+            closeActiveSegment();
+            PluginMetrics.increment(DROPPED_METRIC);
+            return false;
+        }
+    }
+
+    /**
+     * Replays spooled submissions, oldest first, pacing them to the given rate. Stops at the first
+     * submission that could not be sent.
+     *
+     * @param sender        - sends a single submission
+     * @param maxRecords    - maximum number of submissions to replay
+     * @param ratePerSecond - maximum number of submissions replayed per second
+     * @return the number of submissions sent.
+     * @throws InterruptedException if interrupted while pacing submissions
+     */
+    public int replay(Sender sender, int maxRecords, int ratePerSecond) throws InterruptedException {
+        long pauseMillis = ratePerSecond > 0 ? 1000 / ratePerSecond : 0;
+        int sent = 0;
+        while (sent < maxRecords) {
+            File segment = oldestSegmentToReplay();
+            if (segment == null) {
+                break;
+            }
+            long offset = segment.getName().equals(cursorSegment) ? cursorOffset : 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+                skipFully(in, offset);
+                while (sent < maxRecords) {
+                    Record record = readRecord(in);
+                    if (record == null) {
+                        // End of the segment, or a torn record
+                        deleteSegment(segment);
+                        break;
+                    }
+                    if (System.currentTimeMillis() - record.timestamp > maxAgeMillis) {
+                        PluginMetrics.increment(DROPPED_METRIC);
+                    } else if (sender.send(record.type, record.payload)) {
+                        PluginMetrics.increment(REPLAYED_METRIC);
+                        sent++;
+                        if (pauseMillis > 0) {
+                            Thread.sleep(pauseMillis);
+                        }
+                    } else {
+                        return sent;
+                    }
+                    offset += record.size;
+                    writeCursor(segment.getName(), offset);
+                }
+            } catch (IOException e) {
+                logger.severe("Failed to read spooled submissions from " + segment + " - " + e.getMessage());
+                deleteSegment(segment);
+            }
+        }
+        return sent;
+    }
+
+    public synchronized boolean isEmpty() {
+        return listSegments().isEmpty();
+    }
+
+    /**
+     * Closes the segment being written, so that it can be replayed.
+     */
+    public synchronized void close() {
+        closeActiveSegment();
+    }
+
+    private synchronized File oldestSegmentToReplay() {
+        List<File> segments = listSegments();
+        if (segments.isEmpty()) {
+            return null;
+        }
+        if (activeSegment != null && segments.get(0).equals(activeSegment)) {
+            // Only the segment being written is left, start a new one so it can be read safely
+            closeActiveSegment();
+        }
+        return segments.get(0);
+    }
+
+    private static void skipFully(DataInputStream in, long offset) throws IOException {
+        while (offset > 0) {
+            long skipped = in.skip(offset);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            offset -= skipped;
+        }
+    }
+
+    private static Record readRecord(DataInputStream in) throws IOException {
+        try {
+            int typeLength = in.readUnsignedShort();
+            byte[] typeBytes = new byte[typeLength];
+            in.readFully(typeBytes);
+            long timestamp = in.readLong();
+            int payloadLength = in.readInt();
+            if (payloadLength < 0 || payloadLength > MAX_RECORD_BYTES) {
+                logger.warning("Discarding corrupted spooled submissions");
+                return null;
+            }
+            byte[] payload = new byte[payloadLength];
+            in.readFully(payload);
+            long checksum = in.readLong();
+
+            CRC32 crc = new CRC32();
+            crc.update(typeBytes);
+            crc.update(payload);
+            if (crc.getValue() != checksum) {
+                logger.warning("Discarding corrupted spooled submissions");
+                return null;
+            }
+            return new Record(new String(typeBytes, StandardCharsets.UTF_8), timestamp, payload,
+                    2 + typeLength + 8 + 4 + payloadLength + 8);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void roll() throws IOException {
+        closeActiveSegment();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        activeSegment = new File(directory, String.format("%020d%s", nextSegment++, SEGMENT_SUFFIX));
+        activeOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(activeSegment, true)));
+        activeBytes = 0;
+    }
+
+    private void closeActiveSegment() {
+        if (activeOut != null) {
+            try {
+                activeOut.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close " + activeSegment + " - " + e.getMessage());
+            }
+        }
+        activeOut = null;
+        activeSegment = null;
+    }
+
+    private void enforceRetention() {
+        List<File> segments = listSegments();
+        long size = 0;
+        for (File segment : segments) {
+            size += segment.length();
+        }
+        long now = System.currentTimeMillis();
+        for (File segment : segments) {
+            if (segment.equals(activeSegment)) {
+                break;
+            }
+            if (size <= maxBytes && now - segment.lastModified() <= maxAgeMillis) {
+                break;
+            }
+            logger.warning("Outbox retention exceeded, deleting spooled submissions " + segment);
+            size -= segment.length();
+            deleteSegment(segment);
+            PluginMetrics.increment(DROPPED_METRIC);
+        }
+        updateMetrics();
+    }
+
+    private synchronized void deleteSegment(File segment) {
+        if (segment.equals(activeSegment)) {
+            closeActiveSegment();
+        }
+        if (!segment.delete() && segment.exists()) {
+            logger.warning("Failed to delete " + segment);
+        }
+        if (segment.getName().equals(cursorSegment)) {
+            writeCursor(null, 0);
+        }
+        updateMetrics();
+    }
+
+    private List<File> listSegments() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<File> segments = new ArrayList<>();
+        for (File file : files) {
+            if (file.getName().endsWith(SEGMENT_SUFFIX)) {
+                segments.add(file);
+            }
+        }
+        // Names are zero padded sequence numbers
+        File[] sorted = segments.toArray(new File[0]);
+        Arrays.sort(sorted);
+        return Arrays.asList(sorted);
+    }
+
+    private static long segmentNumber(File segment) {
+        String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private synchronized void writeCursor(String segment, long offset) {
+        cursorSegment = segment;
+        cursorOffset = offset;
+        File cursor = new File(directory, CURSOR_FILE);
+        if (segment == null) {
+            if (!cursor.delete() && cursor.exists()) {
+                logger.warning("Failed to delete " + cursor);
+            }
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(cursor))) {
+            out.writeUTF(segment);
+            out.writeLong(offset);
+        } catch (IOException e) {
+            logger.warning("Failed to write " + cursor + " - " + e.getMessage());
+        }
+    }
+
+    private void readCursor() {
+        File cursor = new File(directory, CURSOR_FILE);
+        if (!cursor.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(cursor))) {
+            cursorSegment = in.readUTF();
+            cursorOffset = in.readLong();
+        } catch (IOException e) {
+            logger.warning("Failed to read " + cursor + ", spooled submissions may be sent twice - " + e.getMessage());
+        }
+    }
+
+    private void updateMetrics() {
+        List<File> segments = listSegments();
+        long size = 0;
+        for (File segment : segments) {
+            size += segment.length();
+        }
+        PluginMetrics.set(SIZE_METRIC, size);
+        PluginMetrics.set(SEGMENTS_METRIC, segments.size());
+    }
+
+    private static class Record {
+        private final String type;
+        private final long timestamp;
+        private final byte[] payload;
+        private final long size;
+
+        Record(String type, long timestamp, byte[] payload, long size) {
+            this.type = type;
+            this.timestamp = timestamp;
+            this.payload = payload;
+            this.size = size;
+        }
+    }
+}
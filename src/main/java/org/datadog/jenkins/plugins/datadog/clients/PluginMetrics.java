@@ -0,0 +1,100 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the metrics the plugin computes about itself (submission queue, payload sizes, ...).
+ * Values are periodically reported to Datadog by the DatadogJenkinsPublisher.
+ */
+public class PluginMetrics {
+
+    private static final ConcurrentMap<String, AtomicLong> values = new ConcurrentHashMap<>();
+
+    private PluginMetrics(){}
+
+    /**
+     * Increments a monotonic counter by one.
+     *
+     * @param name - metric name
+     */
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * Increments a monotonic counter.
+     *
+     * @param name  - metric name
+     * @param delta - value to add to the counter
+     */
+    public static void add(String name, long delta) {
+        get(name).addAndGet(delta);
+    }
+
+    /**
+     * Sets the current value of a gauge.
+     *
+     * @param name  - metric name
+     * @param value - current value
+     */
+    public static void set(String name, long value) {
+        get(name).set(value);
+    }
+
+    public static long getValue(String name) {
+        AtomicLong value = values.get(name);
+        return value == null ? 0 : value.get();
+    }
+
+    /**
+     * @return a sorted copy of all the plugin metrics and their current value.
+     */
+    public static Map<String, Long> snapshot() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : values.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    private static AtomicLong get(String name) {
+        AtomicLong value = values.get(name);
+        if (value == null) {
+            AtomicLong newValue = new AtomicLong();
+            value = values.putIfAbsent(name, newValue);
+            if (value == null) {
+                value = newValue;
+            }
+        }
+        return value;
+    }
+}
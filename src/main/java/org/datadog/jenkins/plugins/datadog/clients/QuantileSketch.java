@@ -0,0 +1,332 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A quantile sketch with relative-error guarantees, in the spirit of DDSketch: values are counted in
+ * logarithmically sized bins, so that any quantile is returned within the configured relative accuracy
+ * of its exact value, whatever the distribution of the values.
+ *
+ * Memory is bounded: when the values span more bins than allowed, the lowest bins are collapsed, which
+ * only degrades the accuracy of the lowest quantiles. Sketches with the same parameters can be merged.
+ *
+ * This class is not thread safe.
+ */
+public class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    public static final int DEFAULT_MAX_BINS = 2048;
+
+    // Values closer to zero than this are counted as zero
+    private static final double MIN_INDEXABLE_VALUE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final int maxBins;
+    private final double gamma;
+    private final double logGamma;
+
+    private final Store positiveValues;
+    private final Store negativeValues;
+    private long zeroCount = 0;
+    private long count = 0;
+    private double sum = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BINS);
+    }
+
+    /**
+     * @param relativeAccuracy - the maximum relative error of the quantiles, between 0 and 1 (exclusive)
+     * @param maxBins          - the maximum number of bins kept for positive values, and for negative values
+     */
+    public QuantileSketch(double relativeAccuracy, int maxBins) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("The relative accuracy must be between 0 and 1");
+        }
+        if (maxBins < 1) {
+            throw new IllegalArgumentException("The maximum number of bins must be positive");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBins = maxBins;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.positiveValues = new Store(maxBins);
+        this.negativeValues = new Store(maxBins);
+    }
+
+    public void accept(double value) {
+        accept(value, 1);
+    }
+
+    /**
+     * @param value - the value to add, NaN values are ignored
+     * @param count - the number of times the value was observed
+     */
+    public void accept(double value, long count) {
+        if (Double.isNaN(value) || count <= 0) {
+            return;
+        }
+        if (value > MIN_INDEXABLE_VALUE) {
+            positiveValues.add(index(value), count);
+        } else if (value < -MIN_INDEXABLE_VALUE) {
+            negativeValues.add(index(-value), count);
+        } else {
+            zeroCount += count;
+        }
+        this.count += count;
+        this.sum += value * count;
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * Adds the values of another sketch to this one.
+     *
+     * @param other - a sketch with the same relative accuracy and maximum number of bins
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy || other.maxBins != maxBins) {
+            throw new IllegalArgumentException("Only sketches with the same parameters can be merged");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        positiveValues.merge(other.positiveValues);
+        negativeValues.merge(other.negativeValues);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @param quantile - the quantile, between 0 and 1
+     * @return the value at the given quantile, or NaN if the sketch is empty.
+     */
+    public double getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1 || count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        // The exact extremes are known
+        if (rank == 0) {
+            return min;
+        } else if (rank == count - 1) {
+            return max;
+        }
+        double value;
+        if (rank < negativeValues.total) {
+            // Negative values are stored by magnitude, the lowest value is in the highest bin
+            value = -value(negativeValues.indexAtRank(negativeValues.total - 1 - rank));
+        } else if (rank < negativeValues.total + zeroCount) {
+            value = 0;
+        } else {
+            value = value(positiveValues.indexAtRank(rank - negativeValues.total - zeroCount));
+        }
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the lowest value added, or NaN if the sketch is empty.
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return the highest value added, or NaN if the sketch is empty.
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @return the non-empty bins, from the lowest value to the highest.
+     */
+    public List<Bin> getBins() {
+        List<Bin> bins = new ArrayList<>();
+        if (negativeValues.total > 0) {
+            for (int i = negativeValues.maxIndex; i >= negativeValues.minIndex; i--) {
+                long binCount = negativeValues.get(i);
+                if (binCount > 0) {
+                    bins.add(new Bin(-value(i), binCount));
+                }
+            }
+        }
+        if (zeroCount > 0) {
+            bins.add(new Bin(0, zeroCount));
+        }
+        if (positiveValues.total > 0) {
+            for (int i = positiveValues.minIndex; i <= positiveValues.maxIndex; i++) {
+                long binCount = positiveValues.get(i);
+                if (binCount > 0) {
+                    bins.add(new Bin(value(i), binCount));
+                }
+            }
+        }
+        return bins;
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    private double value(int index) {
+        // Bin i holds values in (gamma^(i-1), gamma^i], this value is within the relative accuracy of both bounds
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /**
+     * A value and the number of times it was counted.
+     */
+    public static class Bin {
+
+        private final double value;
+        private final long count;
+
+        Bin(double value, long count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Counts per bin index, for a contiguous range of at most maxBins indexes.
+     */
+    private static class Store {
+
+        private static final int INITIAL_BINS = 64;
+
+        private final int maxBins;
+        private long[] counts;
+        private int offset;
+        private int minIndex;
+        private int maxIndex;
+        private long total = 0;
+
+        Store(int maxBins) {
+            this.maxBins = maxBins;
+        }
+
+        long get(int index) {
+            return counts[index - offset];
+        }
+
+        void add(int index, long count) {
+            if (total == 0) {
+                if (counts == null) {
+                    counts = new long[Math.min(INITIAL_BINS, maxBins)];
+                }
+                offset = index - counts.length / 2;
+                minIndex = index;
+                maxIndex = index;
+            }
+            int low = Math.min(minIndex, index);
+            int high = Math.max(maxIndex, index);
+            if (high - low + 1 > maxBins) {
+                // Collapse the lowest bins
+                low = high - maxBins + 1;
+            }
+            if (low < offset || high >= offset + counts.length || low > minIndex) {
+                resize(low, high);
+            }
+            index = Math.max(index, low);
+            counts[index - offset] += count;
+            total += count;
+            minIndex = Math.min(minIndex, index);
+            maxIndex = Math.max(maxIndex, index);
+        }
+
+        void merge(Store other) {
+            if (other.total == 0) {
+                return;
+            }
+            for (int i = other.minIndex; i <= other.maxIndex; i++) {
+                long binCount = other.get(i);
+                if (binCount > 0) {
+                    add(i, binCount);
+                }
+            }
+        }
+
+        /**
+         * @param rank - the rank of a value, 0 being the lowest
+         * @return the index of the bin holding the value of the given rank.
+         */
+        int indexAtRank(long rank) {
+            long seen = 0;
+            for (int i = minIndex; i <= maxIndex; i++) {
+                seen += get(i);
+                if (seen > rank) {
+                    return i;
+                }
+            }
+            return maxIndex;
+        }
+
+        private void resize(int low, int high) {
+            int needed = high - low + 1;
+            int length = Math.min(maxBins, Math.max(counts.length, Integer.highestOneBit(needed - 1) << 1));
+            length = Math.max(length, needed);
+            int newOffset = low - (length - needed) / 2;
+            long[] newCounts = new long[length];
+            if (total > 0) {
+                for (int i = minIndex; i <= maxIndex; i++) {
+                    newCounts[Math.max(i, low) - newOffset] += counts[i - offset];
+                }
+                minIndex = Math.max(minIndex, low);
+            }
+            counts = newCounts;
+            offset = newOffset;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects metric points submitted through the {@link DatadogHttpClient} so that they can be sent
+ * to the Datadog API as a single "v1/series" payload instead of one request per point.
+ *
+ * The buffer reports when it should be flushed, either because it holds too many points or because
+ * its oldest point has been waiting for too long. When drained, points are split in batches so that
+ * a single payload never exceeds the intake size limit.
+ */
+public class SeriesBuffer {
+
+    // The API rejects payloads bigger than 3.2 MB, we keep some margin for the estimation error.
+    public static final int DEFAULT_MAX_PAYLOAD_BYTES = 3000000;
+    public static final int DEFAULT_MAX_POINTS = 1000;
+    public static final long DEFAULT_MAX_AGE_MILLIS = 10000;
+
+    // Size of the JSON syntax surrounding each series: keys, brackets, quotes, timestamp and value.
+    private static final int SERIES_OVERHEAD_BYTES = 96;
+    private static final int PAYLOAD_OVERHEAD_BYTES = 16;
+
+    private final int maxPoints;
+    private final long maxAgeMillis;
+    private final int maxPayloadBytes;
+
+    private List<Point> points = new ArrayList<>();
+    private long oldestPointMillis = -1;
+
+    public SeriesBuffer() {
+        this(DEFAULT_MAX_POINTS, DEFAULT_MAX_AGE_MILLIS, DEFAULT_MAX_PAYLOAD_BYTES);
+    }
+
+    public SeriesBuffer(int maxPoints, long maxAgeMillis, int maxPayloadBytes) {
+        this.maxPoints = maxPoints;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxPayloadBytes = maxPayloadBytes;
+    }
+
+    /**
+     * Adds a point to the buffer.
+     *
+     * @param point - the point to buffer
+     * @return true if the buffer reached one of its thresholds and should be flushed.
+     */
+    public synchronized boolean add(Point point) {
+        if (points.isEmpty()) {
+            oldestPointMillis = System.currentTimeMillis();
+        }
+        points.add(point);
+        return shouldFlush();
+    }
+
+    /**
+     * @return true if the buffer holds too many points or if its oldest point is too old.
+     */
+    public synchronized boolean shouldFlush() {
+        if (points.isEmpty()) {
+            return false;
+        }
+        return points.size() >= maxPoints || System.currentTimeMillis() - oldestPointMillis >= maxAgeMillis;
+    }
+
+    public synchronized int size() {
+        return points.size();
+    }
+
+    /**
+     * Removes all points from the buffer and splits them in batches. The estimated serialized size of
+     * each batch is lower than the configured maximum payload size.
+     *
+     * @return a list of batches, empty if the buffer is empty.
+     */
+    public List<List<Point>> drain() {
+        List<Point> drained;
+        synchronized (this) {
+            if (points.isEmpty()) {
+                return Collections.emptyList();
+            }
+            drained = points;
+            points = new ArrayList<>();
+            oldestPointMillis = -1;
+        }
+
+        List<List<Point>> batches = new ArrayList<>();
+        List<Point> batch = new ArrayList<>();
+        int batchBytes = PAYLOAD_OVERHEAD_BYTES;
+        for (Point point : drained) {
+            int pointBytes = point.estimateSize();
+            if (!batch.isEmpty() && batchBytes + pointBytes > maxPayloadBytes) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                batchBytes = PAYLOAD_OVERHEAD_BYTES;
+            }
+            batch.add(point);
+            batchBytes += pointBytes;
+        }
+        batches.add(batch);
+        return batches;
+    }
+
+    /**
+     * A single metric point, of type [unix_timestamp, value], and the series it belongs to.
+     */
+    public static class Point {
+
+        private final MetricKey key;
+        private final String type;
+        private final long timestamp;
+        private final float value;
+        private final Integer interval;
+
+        public Point(String metricName, String hostname, Map<String, Set<String>> tags, String type,
+                     long timestamp, float value, Integer interval) {
+            this(MetricKey.of(metricName, hostname, tags), type, timestamp, value, interval);
+        }
+
+        public Point(MetricKey key, String type, long timestamp, float value, Integer interval) {
+            this.key = key;
+            this.type = type;
+            this.timestamp = timestamp;
+            this.value = value;
+            this.interval = interval;
+        }
+
+        public MetricKey getKey() {
+            return key;
+        }
+
+        public String getMetricName() {
+            return key.getMetricName();
+        }
+
+        public String getHostname() {
+            return key.getHostname();
+        }
+
+        public Map<String, Set<String>> getTags() {
+            return key.getTagMap();
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public float getValue() {
+            return value;
+        }
+
+        public Integer getInterval() {
+            return interval;
+        }
+
+        int estimateSize() {
+            int size = SERIES_OVERHEAD_BYTES;
+            size += key.getMetricName() == null ? 4 : key.getMetricName().length();
+            size += key.getHostname() == null ? 4 : key.getHostname().length();
+            if (key.getTagCount() > 0) {
+                size += key.getJsonTags().length;
+            }
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return "Point{" +
+                    "key=" + key +
+                    ", type='" + type + '\'' +
+                    ", timestamp=" + timestamp +
+                    ", value=" + value +
+                    '}';
+        }
+    }
+}
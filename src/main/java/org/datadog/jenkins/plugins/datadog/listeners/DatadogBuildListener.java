@@ -36,6 +36,10 @@ import org.datadog.jenkins.plugins.datadog.events.BuildAbortedEventImpl;
 import org.datadog.jenkins.plugins.datadog.events.BuildFinishedEventImpl;
 import org.datadog.jenkins.plugins.datadog.events.BuildStartedEventImpl;
 import org.datadog.jenkins.plugins.datadog.model.BuildData;
+import org.datadog.jenkins.plugins.datadog.model.BuildDataCache;
+import org.datadog.jenkins.plugins.datadog.model.ExecutorTracker;
+import org.datadog.jenkins.plugins.datadog.model.JobReliability;
+import org.datadog.jenkins.plugins.datadog.model.QueueTracker;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
@@ -48,6 +52,7 @@ import java.util.logging.Logger;
  * This class registers an {@link RunListener} to trigger events and calculate metrics:
  * - When a build starts, the {@link #onStarted(Run, TaskListener)} method will be invoked.
  * - When a build finishes, the {@link #onCompleted(Run, TaskListener)} method will be invoked.
+ * - When a build is finalized or deleted, its cached {@link BuildData} is evicted.
  */
 @Extension
 public class DatadogBuildListener extends RunListener<Run>  {
@@ -64,6 +69,11 @@ public class DatadogBuildListener extends RunListener<Run>  {
     @Override
     public void onStarted(Run run, TaskListener listener) {
         try {
+            // Executor time is accounted for every build, tracked or not
+            ExecutorTracker.started(run, run.getStartTimeInMillis());
+            // Claimed for every build, so that the waiting times of untracked jobs are not kept
+            Long waitingMillis = QueueTracker.removeWaitingTime(run.getQueueId());
+
             // Process only if job is NOT in blacklist and is in whitelist
             if (!DatadogUtilities.isJobTracked(run.getParent().getFullName())) {
                 return;
@@ -76,7 +86,7 @@ public class DatadogBuildListener extends RunListener<Run>  {
             // Collect Build Data
             BuildData buildData;
             try {
-                buildData = new BuildData(run, listener);
+                buildData = BuildDataCache.get(run, listener);
             } catch (IOException | InterruptedException e) {
                 logger.severe(e.getMessage());
                 return;
@@ -87,16 +97,19 @@ public class DatadogBuildListener extends RunListener<Run>  {
             client.event(event);
 
             // Send an metric
+            // The queue listener recorded the time the item waited when it left the queue. Otherwise
             // item.getInQueueSince() may raise a NPE if a worker node is spinning up to run the job.
             // This could be expected behavior with ec2 spot instances/ecs containers, meaning no waiting
             // queue times if the plugin is spinning up an instance/container for one/first job.
-            Queue queue = Queue.getInstance();
-            Queue.Item item = queue.getItem(run.getQueueId());
             Map<String, Set<String>> tags = buildData.getTags();
             String hostname = buildData.getHostname("null");
             try {
-                long waiting = (DatadogUtilities.currentTimeMillis() - item.getInQueueSince()) / 1000;
-                client.gauge("jenkins.job.waiting", waiting, hostname, tags);
+                if (waitingMillis == null) {
+                    Queue.Item item = Queue.getInstance().getItem(run.getQueueId());
+                    waitingMillis = DatadogUtilities.currentTimeMillis() - item.getInQueueSince();
+                }
+                long waiting = waitingMillis / 1000;
+                client.distribution("jenkins.job.waiting", waiting, hostname, tags);
             } catch (NullPointerException e) {
                 logger.warning("Unable to compute 'waiting' metric. " +
                         "item.getInQueueSince() unavailable, possibly due to worker instance provisioning");
@@ -122,6 +135,8 @@ public class DatadogBuildListener extends RunListener<Run>  {
     @Override
     public void onCompleted(Run run, @Nonnull TaskListener listener) {
         try {
+            ExecutorTracker.completed(run, DatadogUtilities.currentTimeMillis());
+
             // Process only if job in NOT in blacklist and is in whitelist
             if (!DatadogUtilities.isJobTracked(run.getParent().getFullName())) {
                 return;
@@ -134,7 +149,7 @@ public class DatadogBuildListener extends RunListener<Run>  {
             // Collect Build Data
             BuildData buildData;
             try {
-                buildData = new BuildData(run, listener);
+                buildData = BuildDataCache.get(run, listener);
             } catch (IOException | InterruptedException e) {
                 logger.severe(e.getMessage());
                 return;
@@ -147,7 +162,7 @@ public class DatadogBuildListener extends RunListener<Run>  {
             // Send a metric
             Map<String, Set<String>> tags = buildData.getTags();
             String hostname = buildData.getHostname("null");
-            client.gauge("jenkins.job.duration", buildData.getDuration(0L) / 1000, hostname, tags);
+            client.distribution("jenkins.job.duration", buildData.getDuration(0L) / 1000, hostname, tags);
 
             // Submit counter
             client.incrementCounter("jenkins.job.completed", hostname, tags);
@@ -166,25 +181,26 @@ public class DatadogBuildListener extends RunListener<Run>  {
             }
             client.serviceCheck("jenkins.job.status", status, hostname, tags);
 
+            JobReliability.Times times = JobReliability.record(run);
             if (run.getResult() == Result.SUCCESS) {
-                long mttr = getMeanTimeToRecovery(run);
-                long cycleTime = getCycleTime(run);
+                long mttr = times.getMeanTimeToRecovery();
+                long cycleTime = times.getCycleTime();
                 long leadTime = run.getDuration() + mttr;
 
-                client.gauge("jenkins.job.leadtime", leadTime / 1000, hostname, tags);
+                client.distribution("jenkins.job.leadtime", leadTime / 1000, hostname, tags);
                 if (cycleTime > 0) {
-                    client.gauge("jenkins.job.cycletime", cycleTime / 1000, hostname, tags);
+                    client.distribution("jenkins.job.cycletime", cycleTime / 1000, hostname, tags);
                 }
                 if (mttr > 0) {
-                    client.gauge("jenkins.job.mttr", mttr / 1000, hostname, tags);
+                    client.distribution("jenkins.job.mttr", mttr / 1000, hostname, tags);
                 }
             } else {
                 long feedbackTime = run.getDuration();
-                long mtbf = getMeanTimeBetweenFailure(run);
+                long mtbf = times.getMeanTimeBetweenFailure();
 
-                client.gauge("jenkins.job.feedbacktime", feedbackTime / 1000, hostname, tags);
+                client.distribution("jenkins.job.feedbacktime", feedbackTime / 1000, hostname, tags);
                 if (mtbf > 0) {
-                    client.gauge("jenkins.job.mtbf", mtbf / 1000, hostname, tags);
+                    client.distribution("jenkins.job.mtbf", mtbf / 1000, hostname, tags);
                 }
             }
 
@@ -209,10 +225,12 @@ public class DatadogBuildListener extends RunListener<Run>  {
             // Collect Build Data
             BuildData buildData;
             try {
-                buildData = new BuildData(run, null);
+                buildData = BuildDataCache.get(run, null);
             } catch (IOException | InterruptedException e) {
                 logger.severe(e.getMessage());
                 return;
+            } finally {
+                BuildDataCache.evict(run);
             }
 
             // Get the list of global tags to apply
@@ -232,43 +250,18 @@ public class DatadogBuildListener extends RunListener<Run>  {
         }
     }
 
-    private long getMeanTimeBetweenFailure(Run<?, ?> run) {
-        Run<?, ?> lastGreenRun = run.getPreviousNotFailedBuild();
-        if (lastGreenRun != null) {
-            return DatadogUtilities.getRunStartTimeInMillis(run) -
-                    DatadogUtilities.getRunStartTimeInMillis(lastGreenRun);
-        }
-        return 0;
-    }
-
-    private long getCycleTime(Run<?, ?> run) {
-        Run<?, ?> previousSuccessfulBuild = run.getPreviousSuccessfulBuild();
-        if (previousSuccessfulBuild != null) {
-            return (DatadogUtilities.getRunStartTimeInMillis(run) + run.getDuration()) -
-                    (DatadogUtilities.getRunStartTimeInMillis(previousSuccessfulBuild) +
-                            previousSuccessfulBuild.getDuration());
-        }
-        return 0;
-    }
-
-    private long getMeanTimeToRecovery(Run<?, ?> run) {
-        if (isFailedBuild(run.getPreviousBuiltBuild())) {
-            Run<?, ?> firstFailedRun = run.getPreviousBuiltBuild();
-
-            while (firstFailedRun != null && isFailedBuild(firstFailedRun.getPreviousBuiltBuild())) {
-                firstFailedRun = firstFailedRun.getPreviousBuiltBuild();
-            }
-            if (firstFailedRun != null) {
-                return DatadogUtilities.getRunStartTimeInMillis(run) -
-                        DatadogUtilities.getRunStartTimeInMillis(firstFailedRun);
-            }
+    /**
+     * Called when a build is finalized, after it completed and its log was written.
+     *
+     * @param run - A Run object representing a particular execution of Job.
+     */
+    @Override
+    public void onFinalized(Run run) {
+        try {
+            BuildDataCache.evict(run);
+        } catch (Exception e) {
+            logger.warning("Unexpected exception occurred - " + e.getMessage());
         }
-        return 0;
-    }
-
-
-    private boolean isFailedBuild(Run<?, ?> run) {
-        return run != null && run.getResult() != Result.SUCCESS;
     }
 
 }
@@ -35,6 +35,7 @@ import org.datadog.jenkins.plugins.datadog.DatadogEvent;
 import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
 import org.datadog.jenkins.plugins.datadog.clients.ClientFactory;
 import org.datadog.jenkins.plugins.datadog.events.*;
+import org.datadog.jenkins.plugins.datadog.util.TagFileCache;
 import org.datadog.jenkins.plugins.datadog.util.TagsUtil;
 
 import javax.annotation.CheckForNull;
@@ -60,7 +61,7 @@ public class DatadogComputerListener extends ComputerListener {
     @Override
     public void onOnline(Computer computer, TaskListener listener) throws IOException, InterruptedException {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSystemEvents();
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSystemEvents();
             if (!emitSystemEvents) {
                 return;
             }
@@ -71,8 +72,8 @@ public class DatadogComputerListener extends ComputerListener {
 
             // Get the list of tags to apply
             Map<String, Set<String>> tags = TagsUtil.merge(
-                    DatadogUtilities.getTagsFromGlobalTags(),
-                    DatadogUtilities.getComputerTags(computer));
+                    DatadogUtilities.getComputerTags(computer),
+                    DatadogUtilities.getTagsFromGlobalTags());
 
             // Send event
             DatadogEvent event = new ComputerOnlineEventImpl(computer, listener, tags, false);
@@ -91,7 +92,10 @@ public class DatadogComputerListener extends ComputerListener {
     @Override
     public void onOffline(@Nonnull Computer computer, @CheckForNull OfflineCause cause) {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSystemEvents();
+            // The tag files of the node are read again if it comes back online
+            TagFileCache.evict(DatadogUtilities.getNodeName(computer));
+
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSystemEvents();
             if (!emitSystemEvents) {
                 return;
             }
@@ -102,8 +106,8 @@ public class DatadogComputerListener extends ComputerListener {
 
             // Get the list of tags to apply
             Map<String, Set<String>> tags = TagsUtil.merge(
-                    DatadogUtilities.getTagsFromGlobalTags(),
-                    DatadogUtilities.getComputerTags(computer));
+                    DatadogUtilities.getComputerTags(computer),
+                    DatadogUtilities.getTagsFromGlobalTags());
 
             // Send event
             DatadogEvent event = new ComputerOfflineEventImpl(computer, cause, tags, false);
@@ -122,7 +126,7 @@ public class DatadogComputerListener extends ComputerListener {
     @Override
     public void onTemporarilyOnline(Computer computer) {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSystemEvents();
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSystemEvents();
             if (!emitSystemEvents) {
                 return;
             }
@@ -133,8 +137,8 @@ public class DatadogComputerListener extends ComputerListener {
 
             // Get the list of tags to apply
             Map<String, Set<String>> tags = TagsUtil.merge(
-                    DatadogUtilities.getTagsFromGlobalTags(),
-                    DatadogUtilities.getComputerTags(computer));
+                    DatadogUtilities.getComputerTags(computer),
+                    DatadogUtilities.getTagsFromGlobalTags());
 
             // Send event
             DatadogEvent event = new ComputerOnlineEventImpl(computer, null, tags, true);
@@ -153,7 +157,7 @@ public class DatadogComputerListener extends ComputerListener {
     @Override
     public void onTemporarilyOffline(Computer computer, OfflineCause cause) {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSystemEvents();
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSystemEvents();
             if (!emitSystemEvents) {
                 return;
             }
@@ -164,8 +168,8 @@ public class DatadogComputerListener extends ComputerListener {
 
             // Get the list of tags to apply
             Map<String, Set<String>> tags = TagsUtil.merge(
-                    DatadogUtilities.getTagsFromGlobalTags(),
-                    DatadogUtilities.getComputerTags(computer));
+                    DatadogUtilities.getComputerTags(computer),
+                    DatadogUtilities.getTagsFromGlobalTags());
 
             // Send event
             DatadogEvent event = new ComputerOfflineEventImpl(computer, cause, tags, true);
@@ -184,7 +188,7 @@ public class DatadogComputerListener extends ComputerListener {
     @Override
     public void onLaunchFailure(Computer computer, TaskListener taskListener) throws IOException, InterruptedException {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSystemEvents();
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSystemEvents();
             if (!emitSystemEvents) {
                 return;
             }
@@ -195,8 +199,8 @@ public class DatadogComputerListener extends ComputerListener {
 
             // Get the list of tags to apply
             Map<String, Set<String>> tags = TagsUtil.merge(
-                    DatadogUtilities.getTagsFromGlobalTags(),
-                    DatadogUtilities.getComputerTags(computer));
+                    DatadogUtilities.getComputerTags(computer),
+                    DatadogUtilities.getTagsFromGlobalTags());
 
             // Send event
             DatadogEvent event = new ComputerLaunchFailedEventImpl(computer, taskListener, tags);
@@ -28,6 +28,7 @@ package org.datadog.jenkins.plugins.datadog.listeners;
 import hudson.Extension;
 import hudson.model.Item;
 import hudson.model.listeners.ItemListener;
+import jenkins.model.Jenkins;
 import org.datadog.jenkins.plugins.datadog.DatadogClient;
 import org.datadog.jenkins.plugins.datadog.DatadogEvent;
 import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
@@ -35,6 +36,7 @@ import org.datadog.jenkins.plugins.datadog.clients.ClientFactory;
 import org.datadog.jenkins.plugins.datadog.events.ItemCRUDEventImpl;
 import org.datadog.jenkins.plugins.datadog.events.ItemCopiedEventImpl;
 import org.datadog.jenkins.plugins.datadog.events.ItemLocationChangedEventImpl;
+import org.datadog.jenkins.plugins.datadog.model.ItemInventory;
 
 import java.util.Map;
 import java.util.Set;
@@ -47,12 +49,26 @@ import java.util.logging.Logger;
  * - When an item gets deleted, the {@link #onDeleted(Item)} method will be invoked.
  * - When an item gets updated, the {@link #onUpdated(Item)} method will be invoked.
  * - When an item gets their location changed, the {@link #onLocationChanged(Item, String, String)} method will be invoked.
+ * - When all items are loaded, the {@link #onLoaded()} method will be invoked.
+ * The {@link ItemInventory} is kept up to date by these callbacks, whether system events are emitted or not.
  */
 @Extension
 public class DatadogItemListener extends ItemListener {
 
     private static final Logger logger = Logger.getLogger(DatadogItemListener.class.getName());
 
+    @Override
+    public void onLoaded() {
+        try {
+            // The item tree is walked once, the inventory is then updated item by item
+            for (Item item : Jenkins.getInstance().getAllItems(Item.class)) {
+                ItemInventory.add(item);
+            }
+        } catch (Exception e) {
+            logger.warning("Unexpected exception occurred - " + e.getMessage());
+        }
+    }
+
     @Override
     public void onCreated(Item item) {
         onCRUD(item, ItemCRUDEventImpl.CREATED);
@@ -70,7 +86,14 @@ public class DatadogItemListener extends ItemListener {
 
     private void onCRUD(Item item, String action) {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSystemEvents();
+            if (ItemCRUDEventImpl.CREATED.equals(action)) {
+                ItemInventory.add(item);
+            } else if (ItemCRUDEventImpl.DELETED.equals(action)) {
+                // Items contained in a deleted folder are not notified
+                ItemInventory.removeAll(item.getFullName());
+            }
+
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSystemEvents();
             if (!emitSystemEvents) {
                 return;
             }
@@ -99,7 +122,9 @@ public class DatadogItemListener extends ItemListener {
     @Override
     public void onCopied(Item src, Item item) {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSystemEvents();
+            ItemInventory.add(item);
+
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSystemEvents();
             if (!emitSystemEvents) {
                 return;
             }
@@ -128,7 +153,11 @@ public class DatadogItemListener extends ItemListener {
     @Override
     public void onLocationChanged(Item item, String oldFullName, String newFullName) {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSystemEvents();
+            // Items contained in a moved folder are notified too
+            ItemInventory.remove(oldFullName);
+            ItemInventory.add(item);
+
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSystemEvents();
             if (!emitSystemEvents) {
                 return;
             }
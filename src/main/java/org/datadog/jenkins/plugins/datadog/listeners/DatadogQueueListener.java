@@ -0,0 +1,115 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.listeners;
+
+import hudson.Extension;
+import hudson.model.Label;
+import hudson.model.Queue;
+import hudson.model.queue.QueueListener;
+import org.datadog.jenkins.plugins.datadog.DatadogClient;
+import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
+import org.datadog.jenkins.plugins.datadog.clients.ClientFactory;
+import org.datadog.jenkins.plugins.datadog.model.ExecutorTracker;
+import org.datadog.jenkins.plugins.datadog.model.QueueTracker;
+import org.datadog.jenkins.plugins.datadog.util.TagsUtil;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * This class registers a {@link QueueListener} to keep track of the items in the Jenkins queue:
+ * - When an item enters or leaves the waiting, blocked or buildable state, the {@link QueueTracker} counts are updated.
+ * - When an item leaves the queue, the time it waited is submitted per label.
+ * - When an item leaves the queue to be executed, the {@link ExecutorTracker} watches its work units.
+ */
+@Extension
+public class DatadogQueueListener extends QueueListener {
+
+    private static final Logger logger = Logger.getLogger(DatadogQueueListener.class.getName());
+
+    @Override
+    public void onEnterWaiting(Queue.WaitingItem wi) {
+        QueueTracker.enter(wi.getId(), QueueTracker.State.WAITING);
+    }
+
+    @Override
+    public void onLeaveWaiting(Queue.WaitingItem wi) {
+        QueueTracker.leave(wi.getId(), QueueTracker.State.WAITING);
+    }
+
+    @Override
+    public void onEnterBlocked(Queue.BlockedItem bi) {
+        QueueTracker.enter(bi.getId(), QueueTracker.State.BLOCKED);
+    }
+
+    @Override
+    public void onLeaveBlocked(Queue.BlockedItem bi) {
+        QueueTracker.leave(bi.getId(), QueueTracker.State.BLOCKED);
+    }
+
+    @Override
+    public void onEnterBuildable(Queue.BuildableItem bi) {
+        QueueTracker.enter(bi.getId(), QueueTracker.State.BUILDABLE);
+    }
+
+    @Override
+    public void onLeaveBuildable(Queue.BuildableItem bi) {
+        QueueTracker.leave(bi.getId(), QueueTracker.State.BUILDABLE);
+    }
+
+    @Override
+    public void onLeft(Queue.LeftItem li) {
+        try {
+            if (li.isCancelled()) {
+                QueueTracker.left(li.getId(), -1);
+                return;
+            }
+            long now = DatadogUtilities.currentTimeMillis();
+            long waiting = now - li.getInQueueSince();
+            QueueTracker.left(li.getId(), waiting);
+            ExecutorTracker.watch(li, now);
+
+            // Get Datadog Client Instance
+            DatadogClient client = ClientFactory.getClient();
+
+            // Get the list of tags to apply
+            Map<String, Set<String>> tags = TagsUtil.merge(new HashMap<String, Set<String>>(),
+                    DatadogUtilities.getTagsFromGlobalTags());
+            Set<String> labelValues = new HashSet<>();
+            Label label = li.getAssignedLabel();
+            labelValues.add(label == null ? "none" : label.getName());
+            tags.put("label", labelValues);
+
+            String hostname = DatadogUtilities.getHostname("null");
+            client.distribution("jenkins.queue.waiting", waiting / 1000, hostname, tags);
+        } catch (Exception e) {
+            logger.warning("Unexpected exception occurred - " + e.getMessage());
+        }
+    }
+}
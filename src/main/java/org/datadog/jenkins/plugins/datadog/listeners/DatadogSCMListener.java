@@ -39,6 +39,7 @@ import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
 import org.datadog.jenkins.plugins.datadog.clients.ClientFactory;
 import org.datadog.jenkins.plugins.datadog.events.SCMCheckoutCompletedEventImpl;
 import org.datadog.jenkins.plugins.datadog.model.BuildData;
+import org.datadog.jenkins.plugins.datadog.model.BuildDataCache;
 
 import java.io.File;
 import java.io.IOException;
@@ -71,6 +72,9 @@ public class DatadogSCMListener extends SCMListener {
     public void onCheckout(Run<?, ?> build, SCM scm, FilePath workspace, TaskListener listener,
                            File changelogFile, SCMRevisionState pollingBaseline) throws Exception {
         try {
+            // The checkout changed the build environment and the workspace, the values read from them are collected again
+            BuildDataCache.checkedOut(build, listener);
+
             // Process only if job is NOT in blacklist and is in whitelist
             DatadogJobProperty prop = DatadogUtilities.getDatadogJobProperties(build);
             if (!(DatadogUtilities.isJobTracked(build.getParent().getFullName())
@@ -85,7 +89,7 @@ public class DatadogSCMListener extends SCMListener {
             // Collect Build Data
             BuildData buildData;
             try {
-                buildData = new BuildData(build, listener);
+                buildData = BuildDataCache.get(build, listener);
             } catch (IOException | InterruptedException e) {
                 logger.severe(e.getMessage());
                 return;
@@ -51,7 +51,7 @@ public class DatadogSaveableListener  extends SaveableListener {
     @Override
     public void onChange(Saveable config, XmlFile file) {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSystemEvents();
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSystemEvents();
             if (!emitSystemEvents) {
                 return;
             }
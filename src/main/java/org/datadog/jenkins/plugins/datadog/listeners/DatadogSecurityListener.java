@@ -53,7 +53,7 @@ public class DatadogSecurityListener extends SecurityListener {
     @Override
     protected void authenticated(@Nonnull UserDetails details) {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSecurityEvents();
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSecurityEvents();
             if (!emitSystemEvents) {
                 return;
             }
@@ -83,7 +83,7 @@ public class DatadogSecurityListener extends SecurityListener {
     @Override
     protected void failedToAuthenticate(@Nonnull String username) {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSecurityEvents();
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSecurityEvents();
             if (!emitSystemEvents) {
                 return;
             }
@@ -122,7 +122,7 @@ public class DatadogSecurityListener extends SecurityListener {
     @Override
     protected void loggedOut(@Nonnull String username) {
         try {
-            final boolean emitSystemEvents = DatadogUtilities.getDatadogGlobalDescriptor().isEmitSecurityEvents();
+            final boolean emitSystemEvents = DatadogUtilities.getDatadogConfig().isEmitSecurityEvents();
             if (!emitSystemEvents) {
                 return;
             }
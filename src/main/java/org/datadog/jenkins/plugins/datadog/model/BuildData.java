@@ -33,43 +33,56 @@ import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
 import org.datadog.jenkins.plugins.datadog.util.TagsUtil;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * A view over a {@link Run} and its environment. Values read from the environment or the
+ * run are resolved the first time they are accessed and memoized, the merged tags are
+ * computed once and reused until one of the values they are made of changes.
+ */
 public class BuildData {
 
-    private String buildNumber;
-    private String buildId;
-    private String buildUrl;
-    private String nodeName;
-    private String jobName;
-    private String buildTag;
-    private String jenkinsUrl;
-    private String executorNumber;
-    private String javaHome;
-    private String workspace;
+    // Marks a value that has not been resolved yet, compared by reference
+    private static final String UNRESOLVED = new String("unresolved");
+
+    private Run run;
+    private EnvVars envVars;
+
+    private String buildNumber = UNRESOLVED;
+    private String buildId = UNRESOLVED;
+    private String buildUrl = UNRESOLVED;
+    private String nodeName = UNRESOLVED;
+    private String jobName = UNRESOLVED;
+    private String buildTag = UNRESOLVED;
+    private String jenkinsUrl = UNRESOLVED;
+    private String executorNumber = UNRESOLVED;
+    private String javaHome = UNRESOLVED;
+    private String workspace = UNRESOLVED;
     // Branch contains either env variable - SVN_REVISION or CVS_BRANCH or GIT_BRANCH
-    private String branch;
-    private String gitUrl;
-    private String gitCommit;
+    private String branch = UNRESOLVED;
+    private String gitUrl = UNRESOLVED;
+    private String gitCommit = UNRESOLVED;
     // Environment variable from the promoted build plugin
     // - See https://plugins.jenkins.io/promoted-builds
     // - See https://wiki.jenkins.io/display/JENKINS/Promoted+Builds+Plugin
-    private String promotedUrl;
-    private String promotedJobName;
-    private String promotedNumber;
-    private String promotedId;
-    private String promotedTimestamp;
-    private String promotedUserName;
-    private String promotedUserId;
-    private String promotedJobFullName;
+    private String promotedUrl = UNRESOLVED;
+    private String promotedJobName = UNRESOLVED;
+    private String promotedNumber = UNRESOLVED;
+    private String promotedId = UNRESOLVED;
+    private String promotedTimestamp = UNRESOLVED;
+    private String promotedUserName = UNRESOLVED;
+    private String promotedUserId = UNRESOLVED;
+    private String promotedJobFullName = UNRESOLVED;
 
     private String result;
-    private String hostname;
-    private String userId;
+    private String hostname = UNRESOLVED;
+    private String userId = UNRESOLVED;
     private Map<String, Set<String>> tags;
+    private volatile Map<String, Set<String>> mergedTags;
 
     private Long startTime;
     private Long endTime;
@@ -79,16 +92,23 @@ public class BuildData {
         if (run == null) {
             return;
         }
-        EnvVars envVars = null;
+        this.run = run;
+        // The environment and the build tags can only be collected while the listener is available
         if(listener != null){
-            envVars = run.getEnvironment(listener);
+            this.envVars = run.getEnvironment(listener);
             setTags(DatadogUtilities.getBuildTags(run, listener));
         }
 
-        // Populate instance using environment variables.
-        populateEnvVariables(envVars);
-
         // Populate instance using run instance
+        refresh(run);
+    }
+
+    /**
+     * Updates the data that changes while the build runs: start time, end time, duration and result.
+     *
+     * @param run - The run the data was collected from
+     */
+    public void refresh(Run run) {
         // Set StartTime, EndTime and Duration
         long startTimeInMs = run.getStartTimeInMillis();
         setStartTime(startTimeInMs);
@@ -102,55 +122,43 @@ public class BuildData {
             setEndTime(endTimeInMs);
         }
 
-        // Set UserId
-        setUserId(getUserId(run));
         // Set Result
         setResult(run.getResult() == null ? null : run.getResult().toString());
-        // Set Build Number
-        setBuildNumber(String.valueOf(run.getNumber()));
-        // Set Hostname
-        setHostname(DatadogUtilities.getHostname(envVars == null ? null : envVars.get("HOSTNAME")));
-        // Set Job Name
-        String jobName = null;
-        try {
-            jobName = run.getParent().getFullName();
-        } catch(NullPointerException e){
-            //noop
+    }
+
+    /**
+     * Collects the environment and the build tags again after a checkout, which changes them. Only the
+     * branch, the git details and the tags are resolved again, other values are kept.
+     *
+     * @param run      - The run the data was collected from
+     * @param listener - Current listener
+     * @throws IOException          if the build environment can't be read.
+     * @throws InterruptedException if interrupted while reading the build environment.
+     */
+    public void checkedOut(Run run, TaskListener listener) throws IOException, InterruptedException {
+        this.envVars = run.getEnvironment(listener);
+        this.branch = UNRESOLVED;
+        this.gitUrl = UNRESOLVED;
+        this.gitCommit = UNRESOLVED;
+        setTags(DatadogUtilities.getBuildTags(run, listener));
+    }
+
+    private String resolve(String value, String envVariable) {
+        if (value != UNRESOLVED) {
+            return value;
         }
-        setJobName(jobName == null ? null : jobName.
-                replaceAll("»", "/").
-                replaceAll(" ", ""));
+        return envVars == null ? null : envVars.get(envVariable);
     }
 
-    private void populateEnvVariables(EnvVars envVars){
-        if (envVars == null) {
-            return;
+    private String resolveGit(String value, String envVariable) {
+        if (value != UNRESOLVED) {
+            return value;
         }
-        setBuildId(envVars.get("BUILD_ID"));
-        setBuildUrl(envVars.get("BUILD_URL"));
-        setNodeName(envVars.get("NODE_NAME"));
-        setBuildTag(envVars.get("BUILD_TAG"));
-        setJenkinsUrl(envVars.get("JENKINS_URL"));
-        setExecutorNumber(envVars.get("EXECUTOR_NUMBER"));
-        setJavaHome(envVars.get("JAVA_HOME"));
-        setWorkspace(envVars.get("WORKSPACE"));
-        if (envVars.get("GIT_BRANCH") != null) {
-            setBranch(envVars.get("GIT_BRANCH"));
-            setGitUrl(envVars.get("GIT_URL"));
-            setGitCommit(envVars.get("GIT_COMMIT"));
-        } else if (envVars.get("CVS_BRANCH") != null) {
-            setBranch(envVars.get("CVS_BRANCH"));
-        } else if (envVars.get("SVN_REVISION") != null) {
-            setBranch(envVars.get("SVN_REVISION"));
+        // Git details are only reported along with the git branch
+        if (envVars == null || envVars.get("GIT_BRANCH") == null) {
+            return null;
         }
-        setPromotedUrl(envVars.get("PROMOTED_URL"));
-        setPromotedJobName(envVars.get("PROMOTED_JOB_NAME"));
-        setPromotedNumber(envVars.get("PROMOTED_NUMBER"));
-        setPromotedId(envVars.get("PROMOTED_ID"));
-        setPromotedTimestamp(envVars.get("PROMOTED_TIMESTAMP"));
-        setPromotedUserName(envVars.get("PROMOTED_USER_NAME"));
-        setPromotedUserId(envVars.get("PROMOTED_USER_ID"));
-        setPromotedJobFullName(envVars.get("PROMOTED_JOB_FULL_NAME"));
+        return envVars.get(envVariable);
     }
 
     /**
@@ -159,12 +167,24 @@ public class BuildData {
      * - Global Job Tags set in Job Properties
      * - Global Tag set in Jenkins Global configuration
      *
+     * The map is computed once and is not modifiable.
+     *
      * @return a map containing all tags values
      */
     public Map<String, Set<String>> getTags() {
+        Map<String, Set<String>> result = this.mergedTags;
+        if (result == null) {
+            result = Collections.unmodifiableMap(mergeTags());
+            this.mergedTags = result;
+        }
+        return result;
+    }
+
+    private Map<String, Set<String>> mergeTags() {
         Map<String, Set<String>> mergedTags = new HashMap<>();
         try {
-            mergedTags = DatadogUtilities.getTagsFromGlobalTags();
+            // Global tags are immutable, they are copied
+            mergedTags = TagsUtil.merge(mergedTags, DatadogUtilities.getTagsFromGlobalTags());
         } catch(NullPointerException e){
             //noop
         }
@@ -173,28 +193,29 @@ public class BuildData {
         Set<String> jobValues = new HashSet<>();
         jobValues.add(getJobName("unknown"));
         additionalTags.put("job", jobValues);
+        String nodeName = getNodeName(null);
         if (nodeName != null) {
             Set<String> nodeValues = new HashSet<>();
-            nodeValues.add(getNodeName("unknown"));
+            nodeValues.add(nodeName);
             additionalTags.put("node", nodeValues);
         }
         if (result != null) {
             Set<String> resultValues = new HashSet<>();
-            resultValues.add(getResult("UNKNOWN"));
+            resultValues.add(result);
             additionalTags.put("result", resultValues);
         }
+        String branch = getBranch(null);
         if (branch != null) {
             Set<String> branchValues = new HashSet<>();
-            branchValues.add(getBranch("unknown"));
+            branchValues.add(branch);
             additionalTags.put("branch", branchValues);
         }
-        mergedTags = TagsUtil.merge(mergedTags, additionalTags);
-
-        return mergedTags;
+        return TagsUtil.merge(mergedTags, additionalTags);
     }
 
     public void setTags(Map<String, Set<String>> tags) {
         this.tags = tags;
+        this.mergedTags = null;
     }
 
     private <A> A defaultIfNull(A value, A defaultValue) {
@@ -206,11 +227,23 @@ public class BuildData {
     }
 
     public String getJobName(String value) {
+        if (jobName == UNRESOLVED) {
+            String fullName = null;
+            try {
+                fullName = run.getParent().getFullName();
+            } catch(NullPointerException e){
+                //noop
+            }
+            jobName = fullName == null ? null : fullName.
+                    replaceAll("»", "/").
+                    replaceAll(" ", "");
+        }
         return defaultIfNull(jobName, value);
     }
 
     public void setJobName(String jobName) {
         this.jobName = jobName;
+        this.mergedTags = null;
     }
 
     public String getResult(String value) {
@@ -218,10 +251,16 @@ public class BuildData {
     }
 
     public void setResult(String result) {
+        if (result == null ? this.result != null : !result.equals(this.result)) {
+            this.mergedTags = null;
+        }
         this.result = result;
     }
 
     public String getHostname(String value) {
+        if (hostname == UNRESOLVED) {
+            hostname = DatadogUtilities.getHostname(envVars == null ? null : envVars.get("HOSTNAME"));
+        }
         return defaultIfNull(hostname, value);
     }
 
@@ -230,6 +269,7 @@ public class BuildData {
     }
 
     public String getBuildUrl(String value) {
+        buildUrl = resolve(buildUrl, "BUILD_URL");
         return defaultIfNull(buildUrl, value);
     }
 
@@ -238,22 +278,37 @@ public class BuildData {
     }
 
     public String getNodeName(String value) {
+        nodeName = resolve(nodeName, "NODE_NAME");
         return defaultIfNull(nodeName, value);
     }
 
     public void setNodeName(String nodeName) {
         this.nodeName = nodeName;
+        this.mergedTags = null;
     }
 
     public String getBranch(String value) {
+        if (branch == UNRESOLVED) {
+            branch = resolve(UNRESOLVED, "GIT_BRANCH");
+            if (branch == null) {
+                branch = resolve(UNRESOLVED, "CVS_BRANCH");
+            }
+            if (branch == null) {
+                branch = resolve(UNRESOLVED, "SVN_REVISION");
+            }
+        }
         return defaultIfNull(branch, value);
     }
 
     public void setBranch(String branch) {
         this.branch = branch;
+        this.mergedTags = null;
     }
 
     public String getBuildNumber(String value) {
+        if (buildNumber == UNRESOLVED) {
+            buildNumber = run == null ? null : String.valueOf(run.getNumber());
+        }
         return defaultIfNull(buildNumber, value);
     }
 
@@ -286,6 +341,7 @@ public class BuildData {
     }
 
     public String getBuildId(String value) {
+        buildId = resolve(buildId, "BUILD_ID");
         return defaultIfNull(buildId, value);
     }
 
@@ -294,6 +350,7 @@ public class BuildData {
     }
 
     public String getBuildTag(String value) {
+        buildTag = resolve(buildTag, "BUILD_TAG");
         return defaultIfNull(buildTag, value);
     }
 
@@ -302,6 +359,7 @@ public class BuildData {
     }
 
     public String getJenkinsUrl(String value) {
+        jenkinsUrl = resolve(jenkinsUrl, "JENKINS_URL");
         return defaultIfNull(jenkinsUrl, value);
     }
 
@@ -310,6 +368,7 @@ public class BuildData {
     }
 
     public String getExecutorNumber(String value) {
+        executorNumber = resolve(executorNumber, "EXECUTOR_NUMBER");
         return defaultIfNull(executorNumber, value);
     }
 
@@ -318,6 +377,7 @@ public class BuildData {
     }
 
     public String getJavaHome(String value) {
+        javaHome = resolve(javaHome, "JAVA_HOME");
         return defaultIfNull(javaHome, value);
     }
 
@@ -326,6 +386,7 @@ public class BuildData {
     }
 
     public String getWorkspace(String value) {
+        workspace = resolve(workspace, "WORKSPACE");
         return defaultIfNull(workspace, value);
     }
 
@@ -334,6 +395,7 @@ public class BuildData {
     }
 
     public String getGitUrl(String value) {
+        gitUrl = resolveGit(gitUrl, "GIT_URL");
         return defaultIfNull(gitUrl, value);
     }
 
@@ -342,6 +404,7 @@ public class BuildData {
     }
 
     public String getGitCommit(String value) {
+        gitCommit = resolveGit(gitCommit, "GIT_COMMIT");
         return defaultIfNull(gitCommit, value);
     }
 
@@ -350,6 +413,7 @@ public class BuildData {
     }
 
     public String getPromotedUrl(String value) {
+        promotedUrl = resolve(promotedUrl, "PROMOTED_URL");
         return defaultIfNull(promotedUrl, value);
     }
 
@@ -358,6 +422,7 @@ public class BuildData {
     }
 
     public String getPromotedJobName(String value) {
+        promotedJobName = resolve(promotedJobName, "PROMOTED_JOB_NAME");
         return defaultIfNull(promotedJobName, value);
     }
 
@@ -366,6 +431,7 @@ public class BuildData {
     }
 
     public String getPromotedNumber(String value) {
+        promotedNumber = resolve(promotedNumber, "PROMOTED_NUMBER");
         return defaultIfNull(promotedNumber, value);
     }
 
@@ -374,6 +440,7 @@ public class BuildData {
     }
 
     public String getPromotedId(String value) {
+        promotedId = resolve(promotedId, "PROMOTED_ID");
         return defaultIfNull(promotedId, value);
     }
 
@@ -382,6 +449,7 @@ public class BuildData {
     }
 
     public String getPromotedTimestamp(String value) {
+        promotedTimestamp = resolve(promotedTimestamp, "PROMOTED_TIMESTAMP");
         return defaultIfNull(promotedTimestamp, value);
     }
 
@@ -390,6 +458,7 @@ public class BuildData {
     }
 
     public String getPromotedUserName(String value) {
+        promotedUserName = resolve(promotedUserName, "PROMOTED_USER_NAME");
         return defaultIfNull(promotedUserName, value);
     }
 
@@ -398,6 +467,7 @@ public class BuildData {
     }
 
     public String getPromotedUserId(String value) {
+        promotedUserId = resolve(promotedUserId, "PROMOTED_USER_ID");
         return defaultIfNull(promotedUserId, value);
     }
 
@@ -406,6 +476,7 @@ public class BuildData {
     }
 
     public String getPromotedJobFullName(String value) {
+        promotedJobFullName = resolve(promotedJobFullName, "PROMOTED_JOB_FULL_NAME");
         return defaultIfNull(promotedJobFullName, value);
     }
 
@@ -414,6 +485,9 @@ public class BuildData {
     }
 
     public String getUserId() {
+        if (userId == UNRESOLVED) {
+            userId = run == null ? null : getUserId(run);
+        }
         return userId;
     }
 
@@ -422,6 +496,7 @@ public class BuildData {
     }
 
     private String getUserId(Run run) {
+        String promotedUserId = getPromotedUserId(null);
         if (promotedUserId != null){
             return promotedUserId;
         }
@@ -0,0 +1,111 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.model;
+
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.datadog.jenkins.plugins.datadog.util.LruCache;
+
+import java.io.IOException;
+
+/**
+ * Keeps the {@link BuildData} of running builds, so that the build environment, the tags and the
+ * hostname are resolved once per build instead of once per listener callback. Only the start time,
+ * end time, duration and result are refreshed when a cached build data is reused.
+ *
+ * Build data are evicted when the build is finalized or deleted. A checkout changes the build environment
+ * and the workspace, so the values read from them are collected again after each checkout. Builds that are never finalized, e.g. because Jenkins was
+ * restarted, are evicted once they are the least recently used of the cached builds.
+ */
+public class BuildDataCache {
+
+    private static final int MAX_CACHED_BUILDS = 1000;
+    private static final LruCache<String, BuildData> cache = new LruCache<>(MAX_CACHED_BUILDS);
+
+    private BuildDataCache(){}
+
+    /**
+     * @param run      - Current build
+     * @param listener - Current listener, null if the build environment isn't available
+     * @return the build data of the run, collected the first time it is requested with a listener.
+     * @throws IOException          if the build environment can't be read.
+     * @throws InterruptedException if interrupted while reading the build environment.
+     */
+    public static BuildData get(Run run, TaskListener listener) throws IOException, InterruptedException {
+        String key = getKey(run);
+        if (key == null) {
+            return new BuildData(run, listener);
+        }
+        BuildData buildData = cache.get(key);
+        if (buildData != null) {
+            buildData.refresh(run);
+            return buildData;
+        }
+        buildData = new BuildData(run, listener);
+        if (listener != null) {
+            // Without a listener, the build environment and the tags are missing
+            cache.put(key, buildData);
+        }
+        return buildData;
+    }
+
+    /**
+     * Collects the values that depend on the build environment again, if the build data is cached.
+     *
+     * @param run      - A build that checked out its sources
+     * @param listener - Current listener
+     * @throws IOException          if the build environment can't be read.
+     * @throws InterruptedException if interrupted while reading the build environment.
+     */
+    public static void checkedOut(Run run, TaskListener listener) throws IOException, InterruptedException {
+        String key = getKey(run);
+        BuildData buildData = key == null ? null : cache.get(key);
+        if (buildData == null) {
+            return;
+        }
+        try {
+            buildData.checkedOut(run, listener);
+        } catch (IOException | InterruptedException e) {
+            // Collected again from scratch when next requested
+            cache.remove(key);
+            throw e;
+        }
+    }
+
+    /**
+     * @param run - A build that is finalized or deleted
+     */
+    public static void evict(Run run) {
+        String key = getKey(run);
+        if (key != null) {
+            cache.remove(key);
+        }
+    }
+
+    private static String getKey(Run run) {
+        return run == null ? null : run.getExternalizableId();
+    }
+}
@@ -0,0 +1,280 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.model;
+
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Label;
+import hudson.model.OneOffExecutor;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.queue.WorkUnit;
+import hudson.model.queue.WorkUnitContext;
+import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts for the time executors spend running work units, per node and label, so that utilization is
+ * exact rather than sampled.
+ *
+ * Jenkins has no extension point for executors starting and completing work, so the work units of the
+ * items leaving the queue are watched: the queue listener hands them over when the main one starts
+ * executing, and the executors running them are polled until they complete. Work units include the
+ * placeholder tasks of Pipeline node blocks. Builds report their exact start and completion times through
+ * the build listener. Flyweight tasks, such as Pipeline runs themselves, don't use the executors of their
+ * node and are not accounted for.
+ *
+ * Busy times are cumulative: work still running counts up to the time of the report, so that the
+ * totals only grow and the difference between two reports is the busy time in between.
+ */
+public class ExecutorTracker {
+
+    // Work units not picked up by an executor by then never will, e.g. when they were cancelled
+    private static final long MAX_UNASSIGNED_MILLIS = 10 * 60 * 1000;
+
+    // Work units handed over to executors, until they complete
+    private static final ConcurrentMap<String, WatchedWorkUnit> watched = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, Work> running = new ConcurrentHashMap<>();
+    // Not bounded, there are only as many keys as pairs of node and label work ran on
+    private static final ConcurrentMap<Key, AtomicLong> completedBusyMillis = new ConcurrentHashMap<>();
+
+    private ExecutorTracker(){}
+
+    /**
+     * Watches the work units of an item that left the queue, until they complete.
+     *
+     * @param item        - The item that left the queue to be executed
+     * @param nowMillis   - The time the item left the queue
+     */
+    public static void watch(Queue.LeftItem item, long nowMillis) {
+        WorkUnitContext context = item.outcome;
+        if (context == null) {
+            return;
+        }
+        List<WorkUnit> units = context.getWorkUnits();
+        for (int i = 0; i < units.size(); i++) {
+            WorkUnit unit = units.get(i);
+            // The main work unit is identified by the queue id, as the build it runs
+            String id = unit.isMainWork() ? String.valueOf(item.getId()) : item.getId() + "/" + i;
+            watched.putIfAbsent(id, new WatchedWorkUnit(id, unit, nowMillis));
+        }
+    }
+
+    /**
+     * Checks whether the watched work units started or completed.
+     *
+     * @param nowMillis - The time of the check
+     */
+    public static void poll(long nowMillis) {
+        Iterator<WatchedWorkUnit> iterator = watched.values().iterator();
+        while (iterator.hasNext()) {
+            WatchedWorkUnit watchedUnit = iterator.next();
+            Executor executor = watchedUnit.unit.getExecutor();
+            if (executor == null) {
+                if (nowMillis - watchedUnit.sinceMillis > MAX_UNASSIGNED_MILLIS) {
+                    iterator.remove();
+                }
+                continue;
+            }
+            if (executor instanceof OneOffExecutor) {
+                iterator.remove();
+                continue;
+            }
+            if (executor.getCurrentWorkUnit() == watchedUnit.unit) {
+                long startMillis = Math.max(watchedUnit.sinceMillis, nowMillis - Math.max(0, executor.getElapsedTime()));
+                watchedUnit.start(executor.getOwner(), startMillis);
+            } else {
+                // Work units which ran between two checks are only accounted for if they are builds
+                watchedUnit.complete(nowMillis);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @param run         - The build that started
+     * @param startMillis - The time the build started
+     */
+    public static void started(Run run, long startMillis) {
+        WatchedWorkUnit watchedUnit = watched.get(String.valueOf(run.getQueueId()));
+        Executor executor = run.getExecutor();
+        if (watchedUnit != null && executor != null && !(executor instanceof OneOffExecutor)) {
+            watchedUnit.start(executor.getOwner(), startMillis);
+        }
+    }
+
+    /**
+     * @param run       - The build that completed
+     * @param endMillis - The time the build completed
+     */
+    public static void completed(Run run, long endMillis) {
+        WatchedWorkUnit watchedUnit = watched.get(String.valueOf(run.getQueueId()));
+        if (watchedUnit != null) {
+            watchedUnit.complete(endMillis);
+        }
+    }
+
+    /**
+     * @param id          - The id of the work unit
+     * @param node        - The name of the node the work unit runs on
+     * @param label       - The label the work unit was assigned
+     * @param startMillis - The time the executor started the work unit
+     */
+    public static void started(String id, String node, String label, long startMillis) {
+        if (id == null) {
+            return;
+        }
+        running.put(id, new Work(new Key(node, label), startMillis));
+    }
+
+    /**
+     * @param id        - The id of the work unit
+     * @param endMillis - The time the executor completed the work unit
+     */
+    public static void completed(String id, long endMillis) {
+        Work work = id == null ? null : running.remove(id);
+        if (work == null) {
+            return;
+        }
+        AtomicLong busy = completedBusyMillis.get(work.key);
+        if (busy == null) {
+            AtomicLong previous = completedBusyMillis.putIfAbsent(work.key, busy = new AtomicLong());
+            if (previous != null) {
+                busy = previous;
+            }
+        }
+        busy.addAndGet(Math.max(0, endMillis - work.startMillis));
+    }
+
+    /**
+     * @param nowMillis - The time of the report
+     * @return the total time executors were busy, in milliseconds, per node and label.
+     */
+    public static Map<Key, Long> getBusyMillis(long nowMillis) {
+        Map<Key, Long> result = new HashMap<>();
+        for (Map.Entry<Key, AtomicLong> entry : completedBusyMillis.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Work work : running.values()) {
+            Long busy = result.get(work.key);
+            long current = Math.max(0, nowMillis - work.startMillis);
+            result.put(work.key, busy == null ? current : busy + current);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of work units currently running on executors.
+     */
+    public static long getRunning() {
+        return running.size();
+    }
+
+    private static final class WatchedWorkUnit {
+        private final String id;
+        private final WorkUnit unit;
+        private final long sinceMillis;
+        // Guarded by this
+        private boolean started = false;
+        private boolean completed = false;
+
+        private WatchedWorkUnit(String id, WorkUnit unit, long sinceMillis) {
+            this.id = id;
+            this.unit = unit;
+            this.sinceMillis = sinceMillis;
+        }
+
+        synchronized void start(Computer computer, long startMillis) {
+            if (started || completed) {
+                return;
+            }
+            started = true;
+            Label label = unit.work.getAssignedLabel();
+            ExecutorTracker.started(id, DatadogUtilities.getNodeName(computer),
+                    label == null ? "none" : label.getName(), startMillis);
+        }
+
+        synchronized void complete(long endMillis) {
+            if (started && !completed) {
+                ExecutorTracker.completed(id, endMillis);
+            }
+            completed = true;
+        }
+    }
+
+    private static final class Work {
+        private final Key key;
+        private final long startMillis;
+
+        private Work(Key key, long startMillis) {
+            this.key = key;
+            this.startMillis = startMillis;
+        }
+    }
+
+    public static final class Key {
+        private final String node;
+        private final String label;
+
+        public Key(String node, String label) {
+            this.node = node;
+            this.label = label;
+        }
+
+        public String getNode() {
+            return node;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return node.equals(other.node) && label.equals(other.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * node.hashCode() + label.hashCode();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.model;
+
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps an index of the items of the Jenkins instance, updated by the item listener as items are created,
+ * copied, moved and deleted, so that inventory metrics never walk the item tree.
+ *
+ * Items are counted per type and per folder, the full name of the folder being "/" for top level items.
+ */
+public class ItemInventory {
+
+    private static final String ROOT = "/";
+
+    private static final Map<String, Entry> items = new HashMap<>();
+    private static final Map<Key, Long> counts = new HashMap<>();
+    private static long jobCount = 0;
+
+    private ItemInventory(){}
+
+    /**
+     * @param item - The item that was created, copied, moved or loaded
+     */
+    public static void add(Item item) {
+        ItemGroup parent = item.getParent();
+        String folder = parent == null || parent.getFullName().isEmpty() ? ROOT : parent.getFullName();
+        put(item.getFullName(), item.getClass().getSimpleName(), folder, item instanceof Job);
+    }
+
+    /**
+     * @param fullName - The full name of the item
+     * @param type     - The type of the item
+     * @param folder   - The full name of the folder of the item
+     * @param job      - Whether the item is a job
+     */
+    public static synchronized void put(String fullName, String type, String folder, boolean job) {
+        remove(fullName);
+        Entry entry = new Entry(new Key(type, folder), job);
+        items.put(fullName, entry);
+        count(entry, 1);
+    }
+
+    /**
+     * @param fullName - The full name of the item that was moved or deleted
+     */
+    public static synchronized void remove(String fullName) {
+        Entry entry = items.remove(fullName);
+        if (entry != null) {
+            count(entry, -1);
+        }
+    }
+
+    /**
+     * Removes a deleted item and, if it was a folder, the items it contained.
+     * @param fullName - The full name of the item that was deleted
+     */
+    public static synchronized void removeAll(String fullName) {
+        remove(fullName);
+        String prefix = fullName + "/";
+        Iterator<Map.Entry<String, Entry>> iterator = items.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> item = iterator.next();
+            if (item.getKey().startsWith(prefix)) {
+                iterator.remove();
+                count(item.getValue(), -1);
+            }
+        }
+    }
+
+    private static void count(Entry entry, long delta) {
+        Long count = counts.get(entry.key);
+        long value = (count == null ? 0 : count) + delta;
+        if (value == 0) {
+            counts.remove(entry.key);
+        } else {
+            counts.put(entry.key, value);
+        }
+        if (entry.job) {
+            jobCount += delta;
+        }
+    }
+
+    public static synchronized long getJobCount() {
+        return jobCount;
+    }
+
+    /**
+     * @return the number of items per type and folder.
+     */
+    public static synchronized Map<Key, Long> getCounts() {
+        return new HashMap<>(counts);
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final boolean job;
+
+        private Entry(Key key, boolean job) {
+            this.key = key;
+            this.job = job;
+        }
+    }
+
+    public static final class Key {
+        private final String type;
+        private final String folder;
+
+        public Key(String type, String folder) {
+            this.type = type;
+            this.folder = folder;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getFolder() {
+            return folder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return type.equals(other.type) && folder.equals(other.folder);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + folder.hashCode();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.model;
+
+import hudson.XmlFile;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
+import org.datadog.jenkins.plugins.datadog.util.LruCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * Keeps, per job, what the reliability metrics need from the build history: the end time of the last
+ * successful build, the start time of the first build of the current failure streak, and the start time
+ * of the last build that did not fail.
+ *
+ * The state is updated on every completed build and saved in the job directory, so that the mean time to
+ * recovery, the cycle time and the mean time between failures never load previous builds. It is seeded
+ * from the build history the first time a job is seen.
+ *
+ * The states of the most recently built jobs are kept in memory. Loading, updating and saving the state of
+ * a job are serialized, so that a state evicted while it is updated is only loaded again once it is saved.
+ */
+public class JobReliability {
+
+    private static final Logger logger = Logger.getLogger(JobReliability.class.getName());
+
+    private static final String FILE_NAME = "datadog-reliability.xml";
+    private static final int MAX_CACHED_JOBS = 10000;
+    // Keyed by job directory, or by job when it has none
+    private static final LruCache<Object, JobReliability> cache = new LruCache<>(MAX_CACHED_JOBS);
+    private static final Object[] locks = new Object[64];
+
+    static {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private int lastBuildNumber;
+    private long lastSuccessEndTime;
+    private long firstFailureStartTime;
+    private long lastNotFailedStartTime;
+
+    private transient XmlFile file;
+
+    /**
+     * Records a completed build.
+     *
+     * @param run - A completed build
+     * @return the reliability times of the build, computed from the builds recorded before it.
+     */
+    public static Times record(Run<?, ?> run) {
+        Job<?, ?> job = run.getParent();
+        File rootDir = job.getRootDir();
+        Object key = rootDir == null ? job : rootDir;
+        synchronized (locks[(key.hashCode() & Integer.MAX_VALUE) % locks.length]) {
+            return get(run, key, rootDir).update(run);
+        }
+    }
+
+    private static JobReliability get(Run<?, ?> run, Object key, File rootDir) {
+        JobReliability reliability = cache.get(key);
+        if (reliability != null) {
+            return reliability;
+        }
+        XmlFile file = rootDir == null ? null : new XmlFile(new File(rootDir, FILE_NAME));
+        reliability = load(file);
+        if (reliability == null) {
+            reliability = seed(run);
+        }
+        reliability.file = file;
+        cache.put(key, reliability);
+        return reliability;
+    }
+
+    /**
+     * Drops the states kept in memory, they are loaded again when needed.
+     */
+    static void clearCache() {
+        cache.clear();
+    }
+
+    private static JobReliability load(XmlFile file) {
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        try {
+            return (JobReliability) file.read();
+        } catch (IOException | ClassCastException e) {
+            logger.warning("Unable to read " + DatadogUtilities.getFileName(file) + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static JobReliability seed(Run<?, ?> run) {
+        JobReliability reliability = new JobReliability();
+        reliability.lastBuildNumber = run.getNumber() - 1;
+        Run<?, ?> previousSuccessfulBuild = run.getPreviousSuccessfulBuild();
+        if (previousSuccessfulBuild != null) {
+            reliability.lastSuccessEndTime = DatadogUtilities.getRunStartTimeInMillis(previousSuccessfulBuild) +
+                    previousSuccessfulBuild.getDuration();
+        }
+        Run<?, ?> previousNotFailedBuild = run.getPreviousNotFailedBuild();
+        if (previousNotFailedBuild != null) {
+            reliability.lastNotFailedStartTime = DatadogUtilities.getRunStartTimeInMillis(previousNotFailedBuild);
+        }
+        Run<?, ?> firstFailedBuild = null;
+        Run<?, ?> previousBuiltBuild = run.getPreviousBuiltBuild();
+        while (previousBuiltBuild != null && previousBuiltBuild.getResult() != Result.SUCCESS) {
+            firstFailedBuild = previousBuiltBuild;
+            previousBuiltBuild = previousBuiltBuild.getPreviousBuiltBuild();
+        }
+        if (firstFailedBuild != null) {
+            reliability.firstFailureStartTime = DatadogUtilities.getRunStartTimeInMillis(firstFailedBuild);
+        }
+        return reliability;
+    }
+
+    private Times update(Run<?, ?> run) {
+        long startTime = DatadogUtilities.getRunStartTimeInMillis(run);
+        long endTime = startTime + run.getDuration();
+        Result result = run.getResult();
+
+        Times times;
+        if (result == Result.SUCCESS) {
+            times = new Times(
+                    firstFailureStartTime > 0 ? startTime - firstFailureStartTime : 0,
+                    lastSuccessEndTime > 0 ? endTime - lastSuccessEndTime : 0,
+                    0);
+        } else {
+            times = new Times(0, 0, lastNotFailedStartTime > 0 ? startTime - lastNotFailedStartTime : 0);
+        }
+
+        // Builds completing out of order don't move the state back
+        if (result == null || run.getNumber() <= lastBuildNumber) {
+            return times;
+        }
+        lastBuildNumber = run.getNumber();
+        if (result == Result.SUCCESS) {
+            lastSuccessEndTime = endTime;
+            firstFailureStartTime = 0;
+        } else if (result != Result.NOT_BUILT && firstFailureStartTime == 0) {
+            firstFailureStartTime = startTime;
+        }
+        if (result != Result.FAILURE) {
+            lastNotFailedStartTime = startTime;
+        }
+        save();
+        return times;
+    }
+
+    private void save() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.write(this);
+        } catch (IOException e) {
+            logger.warning("Unable to write " + DatadogUtilities.getFileName(file) + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * The reliability times of a build, in milliseconds. A time is 0 when it does not apply to the build.
+     */
+    public static final class Times {
+
+        private final long meanTimeToRecovery;
+        private final long cycleTime;
+        private final long meanTimeBetweenFailure;
+
+        private Times(long meanTimeToRecovery, long cycleTime, long meanTimeBetweenFailure) {
+            // Builds completing out of order may have started before the builds recorded before them
+            this.meanTimeToRecovery = Math.max(0, meanTimeToRecovery);
+            this.cycleTime = Math.max(0, cycleTime);
+            this.meanTimeBetweenFailure = Math.max(0, meanTimeBetweenFailure);
+        }
+
+        /**
+         * @return the time since the start of the first build of the failure streak the build ended.
+         */
+        public long getMeanTimeToRecovery() {
+            return meanTimeToRecovery;
+        }
+
+        /**
+         * @return the time between the end of the previous successful build and the end of the build.
+         */
+        public long getCycleTime() {
+            return cycleTime;
+        }
+
+        /**
+         * @return the time between the start of the previous build that did not fail and the start of the build.
+         */
+        public long getMeanTimeBetweenFailure() {
+            return meanTimeBetweenFailure;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.model;
+
+import org.datadog.jenkins.plugins.datadog.util.LruCache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps live counts of the items in the Jenkins queue, updated by the queue listener as items enter and
+ * leave the waiting, blocked and buildable states, so that queue metrics never walk the queue.
+ *
+ * The largest queue size since the last report is kept so that spikes shorter than the reporting period
+ * are not missed. The time items waited in the queue is kept until the build they started reads it, the
+ * oldest waiting times are evicted first.
+ */
+public class QueueTracker {
+
+    public enum State { WAITING, BLOCKED, BUILDABLE }
+
+    private static final int MAX_WAITING_TIMES = 1000;
+
+    private static final ConcurrentMap<Long, State> items = new ConcurrentHashMap<>();
+    private static final AtomicLong[] counts = new AtomicLong[State.values().length];
+    private static final AtomicLong maxSize = new AtomicLong();
+    // Guarded by itself
+    // Items that did not start a build, e.g. tasks that are not runs, are not kept forever
+    private static final LruCache<Long, Long> waitingTimes = new LruCache<>(MAX_WAITING_TIMES);
+
+    static {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new AtomicLong();
+        }
+    }
+
+    private QueueTracker(){}
+
+    /**
+     * @param id    - The id of the queue item
+     * @param state - The state the item entered
+     */
+    public static void enter(long id, State state) {
+        State previous = items.put(id, state);
+        if (previous != null) {
+            counts[previous.ordinal()].decrementAndGet();
+        }
+        counts[state.ordinal()].incrementAndGet();
+        long size = items.size();
+        long max = maxSize.get();
+        while (size > max && !maxSize.compareAndSet(max, size)) {
+            max = maxSize.get();
+        }
+    }
+
+    /**
+     * @param id    - The id of the queue item
+     * @param state - The state the item left
+     */
+    public static void leave(long id, State state) {
+        if (items.remove(id, state)) {
+            counts[state.ordinal()].decrementAndGet();
+        }
+    }
+
+    /**
+     * @param id             - The id of the queue item that left the queue
+     * @param waitingMillis  - The time the item spent in the queue, negative if it was cancelled
+     */
+    public static void left(long id, long waitingMillis) {
+        State previous = items.remove(id);
+        if (previous != null) {
+            counts[previous.ordinal()].decrementAndGet();
+        }
+        if (waitingMillis >= 0) {
+            waitingTimes.put(id, waitingMillis);
+        }
+    }
+
+    /**
+     * @param id - The id of the queue item a build started from
+     * @return the time the item spent in the queue, in milliseconds, null if unknown.
+     */
+    public static Long removeWaitingTime(long id) {
+        return waitingTimes.remove(id);
+    }
+
+    public static long getSize() {
+        return items.size();
+    }
+
+    public static long getCount(State state) {
+        return counts[state.ordinal()].get();
+    }
+
+    /**
+     * @return the largest queue size since the last call, starting from the current size.
+     */
+    public static long getAndResetMaxSize() {
+        long size = items.size();
+        long max = maxSize.getAndSet(size);
+        return Math.max(max, size);
+    }
+}
@@ -32,8 +32,11 @@ import jenkins.model.Jenkins;
 import org.datadog.jenkins.plugins.datadog.DatadogClient;
 import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
 import org.datadog.jenkins.plugins.datadog.clients.ClientFactory;
+import org.datadog.jenkins.plugins.datadog.model.ExecutorTracker;
 import org.datadog.jenkins.plugins.datadog.util.TagsUtil;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -42,6 +45,10 @@ import java.util.logging.Logger;
 /**
  * This class registers a {@link PeriodicWork} with Jenkins to run periodically in order to enable
  * us to compute metrics related to nodes and executors.
+ *
+ * Executor utilization is computed from the busy times accounted by the {@link ExecutorTracker} since the
+ * previous run, rather than from the executors found busy at the time of the run. The busy time itself is
+ * counted, per node and label, so that restarting Jenkins doesn't reset it.
  */
 @Extension
 public class DatadogComputerPublisher extends PeriodicWork {
@@ -50,6 +57,12 @@ public class DatadogComputerPublisher extends PeriodicWork {
 
     private static final long RECURRENCE_PERIOD = TimeUnit.MINUTES.toMillis(1);
 
+    // Busy times per node reported by the previous run
+    private Map<String, Long> lastBusyMillis = new HashMap<>();
+    // Busy times per node and label reported by the previous run
+    private Map<ExecutorTracker.Key, Long> lastLabelBusyMillis = new HashMap<>();
+    private long lastRunMillis = -1;
+
     @Override
     public long getRecurrencePeriod() {
         return RECURRENCE_PERIOD;
@@ -64,6 +77,15 @@ public class DatadogComputerPublisher extends PeriodicWork {
             DatadogClient client = ClientFactory.getClient();
             String hostname = DatadogUtilities.getHostname("null");
 
+            long now = DatadogUtilities.currentTimeMillis();
+            Map<ExecutorTracker.Key, Long> busyMillis = ExecutorTracker.getBusyMillis(now);
+            Map<String, Long> nodeBusyMillis = new HashMap<>();
+            for (Map.Entry<ExecutorTracker.Key, Long> entry : busyMillis.entrySet()) {
+                String node = entry.getKey().getNode();
+                Long busy = nodeBusyMillis.get(node);
+                nodeBusyMillis.put(node, busy == null ? entry.getValue() : busy + entry.getValue());
+            }
+
             long nodeCount = 0;
             long nodeOffline = 0;
             long nodeOnline = 0;
@@ -87,7 +109,40 @@ public class DatadogComputerPublisher extends PeriodicWork {
                 client.gauge("jenkins.executor.count", executorCount, hostname, tags);
                 client.gauge("jenkins.executor.in_use", inUse, hostname, tags);
                 client.gauge("jenkins.executor.free", free, hostname, tags);
+
+                // Share of the executor time available since the previous run spent on builds, in percent
+                String nodeName = DatadogUtilities.getNodeName(computer);
+                Long busy = nodeBusyMillis.get(nodeName);
+                Long lastBusy = lastBusyMillis.get(nodeName);
+                long capacity = executorCount * (now - lastRunMillis);
+                if (lastRunMillis >= 0 && capacity > 0) {
+                    long busyDelta = (busy == null ? 0 : busy) - (lastBusy == null ? 0 : lastBusy);
+                    if (busyDelta >= 0) {
+                        client.gauge("jenkins.executor.utilization",
+                                Math.min(100, busyDelta * 100 / capacity), hostname, tags);
+                    }
+                }
+            }
+            for (Map.Entry<ExecutorTracker.Key, Long> entry : busyMillis.entrySet()) {
+                // Whole seconds are counted, the remainders are counted once they add up
+                Long lastBusy = lastLabelBusyMillis.get(entry.getKey());
+                long busySeconds = entry.getValue() / 1000 - (lastBusy == null ? 0 : lastBusy / 1000);
+                if (busySeconds <= 0) {
+                    continue;
+                }
+                Map<String, Set<String>> tags = new HashMap<>();
+                Set<String> nodeNameValues = new HashSet<>();
+                nodeNameValues.add(entry.getKey().getNode());
+                tags.put("node_name", nodeNameValues);
+                Set<String> labelValues = new HashSet<>();
+                labelValues.add(entry.getKey().getLabel());
+                tags.put("label", labelValues);
+                tags = TagsUtil.merge(tags, globalTags);
+                client.incrementCounter("jenkins.executor.busy_seconds", busySeconds, hostname, tags);
             }
+            lastLabelBusyMillis = busyMillis;
+            lastBusyMillis = nodeBusyMillis;
+            lastRunMillis = now;
             client.gauge("jenkins.node.count", nodeCount, hostname, globalTags);
             client.gauge("jenkins.node.offline", nodeOffline, hostname, globalTags);
             client.gauge("jenkins.node.online", nodeOnline, hostname, globalTags);
@@ -27,12 +27,16 @@ package org.datadog.jenkins.plugins.datadog.publishers;
 
 import hudson.Extension;
 import hudson.model.PeriodicWork;
-import hudson.model.Project;
 import jenkins.model.Jenkins;
 import org.datadog.jenkins.plugins.datadog.DatadogClient;
 import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
 import org.datadog.jenkins.plugins.datadog.clients.ClientFactory;
+import org.datadog.jenkins.plugins.datadog.clients.PluginMetrics;
+import org.datadog.jenkins.plugins.datadog.model.ItemInventory;
+import org.datadog.jenkins.plugins.datadog.util.TagsUtil;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -63,12 +67,8 @@ public class DatadogJenkinsPublisher extends PeriodicWork {
             DatadogClient client = ClientFactory.getClient();
             String hostname = DatadogUtilities.getHostname("null");
             Map<String, Set<String>> tags = DatadogUtilities.getTagsFromGlobalTags();
-            long projectCount = 0;
-            try {
-                projectCount = Jenkins.getInstance().getAllItems(Project.class).size();
-            } catch (NullPointerException e){
-                logger.fine("Could not retrieve projects");
-            }
+            // Items are counted by the item listener, all kinds of jobs are projects
+            long projectCount = ItemInventory.getJobCount();
             long pluginCount = 0;
             try {
                 pluginCount = Jenkins.getInstance().pluginManager.getPlugins().size();
@@ -77,6 +77,21 @@ public class DatadogJenkinsPublisher extends PeriodicWork {
             }
             client.gauge("jenkins.project.count", projectCount, hostname, tags);
             client.gauge("jenkins.plugin.count", pluginCount, hostname, tags);
+            for (Map.Entry<ItemInventory.Key, Long> count : ItemInventory.getCounts().entrySet()) {
+                Map<String, Set<String>> itemTags = new HashMap<>();
+                Set<String> typeValues = new HashSet<>();
+                typeValues.add(count.getKey().getType());
+                itemTags.put("item_type", typeValues);
+                Set<String> folderValues = new HashSet<>();
+                folderValues.add(count.getKey().getFolder());
+                itemTags.put("folder", folderValues);
+                client.gauge("jenkins.item.count", count.getValue(), hostname, TagsUtil.merge(itemTags, tags));
+            }
+
+            // Submit metrics about the plugin itself
+            for (Map.Entry<String, Long> metric : PluginMetrics.snapshot().entrySet()) {
+                client.gauge(metric.getKey(), metric.getValue(), hostname, tags);
+            }
 
         } catch (Exception e) {
             logger.warning("Unexpected exception occurred - " + e.getMessage());
@@ -0,0 +1,117 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.publishers;
+
+import hudson.Extension;
+import hudson.init.Terminator;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import org.datadog.jenkins.plugins.datadog.DatadogClient;
+import org.datadog.jenkins.plugins.datadog.clients.ClientFactory;
+import org.datadog.jenkins.plugins.datadog.clients.DatadogHttpClient;
+import org.datadog.jenkins.plugins.datadog.clients.Outbox;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Replays the submissions spooled to the {@link Outbox} while the Datadog API was unreachable.
+ *
+ * The replay rate can be tuned with the following system property:
+ * - org.datadog.jenkins.plugins.datadog.publishers.DatadogOutboxPublisher.replayRatePerSecond
+ */
+@Extension
+public class DatadogOutboxPublisher extends AsyncPeriodicWork {
+
+    private static final Logger logger = Logger.getLogger(DatadogOutboxPublisher.class.getName());
+
+    private static final int DEFAULT_REPLAY_RATE_PER_SECOND = 5;
+    private static final int REPLAY_RATE_PER_SECOND = Integer.getInteger(
+            DatadogOutboxPublisher.class.getName() + ".replayRatePerSecond", DEFAULT_REPLAY_RATE_PER_SECOND);
+    // Leave some slack so that a run is over before the next one is scheduled
+    private static final long REPLAY_SECONDS_PER_RUN = 50;
+
+    public DatadogOutboxPublisher() {
+        super("Datadog Outbox Publisher");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.MINUTES.toMillis(1);
+    }
+
+    @Override
+    protected void execute(TaskListener taskListener) throws IOException, InterruptedException {
+        try {
+            Outbox outbox = Outbox.getInstance();
+            if (outbox == null || outbox.isEmpty()) {
+                return;
+            }
+            final DatadogHttpClient client = getHttpClient();
+            if (client == null) {
+                return;
+            }
+            logger.fine("Execute called: Replaying spooled submissions");
+            int sent = outbox.replay(new Outbox.Sender() {
+                @Override
+                public boolean send(String type, byte[] payload) {
+                    return client.resend(type, payload);
+                }
+            }, (int) (REPLAY_RATE_PER_SECOND * REPLAY_SECONDS_PER_RUN), REPLAY_RATE_PER_SECOND);
+            logger.fine(String.format("Replayed %d spooled submissions", sent));
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.warning("Unexpected exception occurred - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Spools metrics not sent yet, so that they are sent after a restart.
+     */
+    @Terminator
+    public static void spoolPendingSubmissions() {
+        try {
+            DatadogHttpClient client = getHttpClient();
+            if (client != null) {
+                client.spoolPending();
+            }
+            Outbox outbox = Outbox.getInstance();
+            if (outbox != null) {
+                outbox.close();
+            }
+        } catch (Exception e) {
+            logger.warning("Unexpected exception occurred - " + e.getMessage());
+        }
+    }
+
+    private static DatadogHttpClient getHttpClient() {
+        // Submissions are only spooled when reporting to the Datadog API
+        DatadogClient client = ClientFactory.getSynchronousClient();
+        return client instanceof DatadogHttpClient ? (DatadogHttpClient) client : null;
+    }
+}
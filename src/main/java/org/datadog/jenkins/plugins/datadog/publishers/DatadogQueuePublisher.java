@@ -31,6 +31,7 @@ import hudson.model.Queue;
 import org.datadog.jenkins.plugins.datadog.DatadogClient;
 import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
 import org.datadog.jenkins.plugins.datadog.clients.ClientFactory;
+import org.datadog.jenkins.plugins.datadog.model.QueueTracker;
 
 import java.util.Map;
 import java.util.Set;
@@ -63,23 +64,21 @@ public class DatadogQueuePublisher extends PeriodicWork {
             DatadogClient client = ClientFactory.getClient();
             Map<String, Set<String>> tags = DatadogUtilities.getTagsFromGlobalTags();
 
-            long size = 0;
-            long buildable = queue.countBuildableItems();
+            // Counts are kept up to date by the queue listener, only buildable items can be stuck
+            long size = QueueTracker.getSize();
+            long maxSize = QueueTracker.getAndResetMaxSize();
+            long buildable = QueueTracker.getCount(QueueTracker.State.BUILDABLE);
             long pending = queue.getPendingItems().size();
             long stuck = 0;
-            long blocked = 0;
-            final Queue.Item[] items = queue.getItems();
-            for (Queue.Item item : items) {
-                size++;
+            long blocked = QueueTracker.getCount(QueueTracker.State.BLOCKED);
+            for (Queue.BuildableItem item : queue.getBuildableItems()) {
                 if(item.isStuck()){
                     stuck++;
                 }
-                if(item.isBlocked()){
-                    blocked++;
-                }
             }
             String hostname = DatadogUtilities.getHostname("null");
             client.gauge("jenkins.queue.size", size, hostname, tags);
+            client.gauge("jenkins.queue.max_size", maxSize, hostname, tags);
             client.gauge("jenkins.queue.buildable", buildable, hostname, tags);
             client.gauge("jenkins.queue.pending", pending, hostname, tags);
             client.gauge("jenkins.queue.stuck", stuck, hostname, tags);
@@ -0,0 +1,289 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The globalTags and globalJobTags global configuration, parsed once. Global job tag rules hold their
+ * compiled job name pattern and pre-split tag templates, where capture group references such as $1 or
+ * $12 are resolved when the configuration is parsed.
+ *
+ * Returned tags are immutable: they can be passed as the source of {@link TagsUtil#merge} but never
+ * as its destination. The rules of the current configuration are kept until the configuration changes.
+ */
+public class GlobalTagRules {
+
+    private static final Logger logger = Logger.getLogger(GlobalTagRules.class.getName());
+
+    private static final int MAX_CACHED_JOBS = 10000;
+    private static final Pattern GROUP_REFERENCE = Pattern.compile("\\$(\\d+)");
+
+    private static volatile GlobalTagRules current;
+
+    private final String globalTags;
+    private final String globalJobTags;
+    private final Map<String, Set<String>> parsedGlobalTags;
+    private final List<JobRule> jobRules;
+    private final LruCache<String, Map<String, Set<String>>> jobTags = new LruCache<>(MAX_CACHED_JOBS);
+
+    GlobalTagRules(String globalTags, String globalJobTags) {
+        this.globalTags = globalTags;
+        this.globalJobTags = globalJobTags;
+        this.parsedGlobalTags = parseGlobalTags(globalTags);
+        this.jobRules = parseJobRules(globalJobTags);
+    }
+
+    /**
+     * @param globalTags    - the globalTags global configuration
+     * @param globalJobTags - the globalJobTags global configuration
+     * @return the rules for the given configuration.
+     */
+    public static GlobalTagRules forConfiguration(String globalTags, String globalJobTags) {
+        GlobalTagRules rules = current;
+        if (rules == null || !equals(rules.globalTags, globalTags) || !equals(rules.globalJobTags, globalJobTags)) {
+            rules = new GlobalTagRules(globalTags, globalJobTags);
+            current = rules;
+        }
+        return rules;
+    }
+
+    /**
+     * @return the tags that should be applied everywhere.
+     */
+    public Map<String, Set<String>> getGlobalTags() {
+        return parsedGlobalTags;
+    }
+
+    /**
+     * @param jobName - the full name of a job
+     * @return the tags of all the global job tag rules matching the job name.
+     */
+    public Map<String, Set<String>> getJobTags(String jobName) {
+        if (jobRules.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Set<String>> tags = jobTags.get(jobName);
+        if (tags == null) {
+            tags = computeJobTags(jobName);
+            jobTags.put(jobName, tags);
+        }
+        return tags;
+    }
+
+    private Map<String, Set<String>> computeJobTags(String jobName) {
+        Map<String, Set<String>> tags = new HashMap<>();
+        for (JobRule rule : jobRules) {
+            Matcher jobNameMatcher = rule.pattern.matcher(jobName);
+            if (!jobNameMatcher.matches()) {
+                continue;
+            }
+            for (TagTemplate template : rule.templates) {
+                String value = template.expand(jobNameMatcher);
+                if (value != null) {
+                    add(tags, template.name, value);
+                }
+            }
+        }
+        return freeze(tags);
+    }
+
+    private static Map<String, Set<String>> parseGlobalTags(String globalTags) {
+        Map<String, Set<String>> tags = new HashMap<>();
+        for (String globalTagsLine : DatadogUtilities.linesToList(globalTags)) {
+            for (String tag : DatadogUtilities.cstrToList(globalTagsLine)) {
+                TagTemplate template = TagTemplate.parse(tag);
+                if (template != null) {
+                    add(tags, template.name, template.expand(null));
+                }
+            }
+        }
+        return freeze(tags);
+    }
+
+    private static List<JobRule> parseJobRules(String globalJobTags) {
+        List<JobRule> rules = new ArrayList<>();
+        // Each line contains one regex, and a variable number of tags
+        for (String globalTagsLine : DatadogUtilities.linesToList(globalJobTags)) {
+            List<String> jobInfo = DatadogUtilities.cstrToList(globalTagsLine);
+            if (jobInfo.isEmpty()) {
+                continue;
+            }
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(jobInfo.get(0));
+            } catch (PatternSyntaxException e) {
+                logger.warning(String.format("Ignoring global job tags with an invalid job name pattern '%s': %s",
+                        jobInfo.get(0), e.getMessage()));
+                continue;
+            }
+            List<TagTemplate> templates = new ArrayList<>();
+            for (int i = 1; i < jobInfo.size(); i++) {
+                TagTemplate template = TagTemplate.parse(jobInfo.get(i));
+                if (template == null) {
+                    continue;
+                }
+                if (template.maxGroup() > pattern.matcher("").groupCount()) {
+                    logger.fine(String.format(
+                            "Specified a capture group that doesn't exist, not applying tag: %s", jobInfo.get(i)));
+                    continue;
+                }
+                templates.add(template);
+            }
+            rules.add(new JobRule(pattern, templates));
+        }
+        return rules;
+    }
+
+    private static void add(Map<String, Set<String>> tags, String name, String value) {
+        Set<String> values = tags.get(name);
+        if (values == null) {
+            values = new HashSet<>();
+            tags.put(name, values);
+        }
+        values.add(value);
+    }
+
+    private static Map<String, Set<String>> freeze(Map<String, Set<String>> tags) {
+        if (tags.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        for (Map.Entry<String, Set<String>> entry : tags.entrySet()) {
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(tags);
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static class JobRule {
+        private final Pattern pattern;
+        private final List<TagTemplate> templates;
+
+        JobRule(Pattern pattern, List<TagTemplate> templates) {
+            this.pattern = pattern;
+            this.templates = templates;
+        }
+    }
+
+    /**
+     * A "name:value" tag, or "name" when the tag has no value. The value is split in literal parts and
+     * capture group references, e.g. "team-$1" is ["team-", 1].
+     */
+    private static class TagTemplate {
+        private final String name;
+        // Literal Strings and Integer group numbers
+        private final List<Object> parts;
+
+        private TagTemplate(String name, List<Object> parts) {
+            this.name = name;
+            this.parts = parts;
+        }
+
+        static TagTemplate parse(String tag) {
+            String[] tagItem = tag.replace(" ", "").split(":", 2);
+            if (tagItem[0].isEmpty()) {
+                logger.fine(String.format("Ignoring the tag %s. It is empty.", tag));
+                return null;
+            }
+            List<Object> parts = new ArrayList<>();
+            if (tagItem.length == 2) {
+                String value = tagItem[1];
+                Matcher m = GROUP_REFERENCE.matcher(value);
+                int start = 0;
+                while (m.find()) {
+                    Integer group;
+                    try {
+                        group = Integer.valueOf(m.group(1));
+                    } catch (NumberFormatException e) {
+                        // Too large to be a group number, kept as a literal
+                        continue;
+                    }
+                    if (m.start() > start) {
+                        parts.add(value.substring(start, m.start()).toLowerCase());
+                    }
+                    parts.add(group);
+                    start = m.end();
+                }
+                if (start < value.length()) {
+                    parts.add(value.substring(start).toLowerCase());
+                }
+            }
+            return new TagTemplate(tagItem[0], parts);
+        }
+
+        int maxGroup() {
+            int max = 0;
+            for (Object part : parts) {
+                if (part instanceof Integer) {
+                    max = Math.max(max, (Integer) part);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * @param jobNameMatcher - the job name match, null when the template has no group reference
+         * @return the tag value, "" when the tag has no value.
+         */
+        String expand(Matcher jobNameMatcher) {
+            if (parts.size() == 1 && parts.get(0) instanceof String) {
+                return (String) parts.get(0);
+            }
+            StringBuilder value = new StringBuilder();
+            for (Object part : parts) {
+                if (part instanceof Integer) {
+                    if (jobNameMatcher == null) {
+                        // Not in a global job tag, kept as is
+                        value.append('$').append(part);
+                        continue;
+                    }
+                    String group = jobNameMatcher.group((Integer) part);
+                    if (group != null) {
+                        value.append(group.toLowerCase());
+                    }
+                } else {
+                    value.append((String) part);
+                }
+            }
+            return value.toString();
+        }
+    }
+}
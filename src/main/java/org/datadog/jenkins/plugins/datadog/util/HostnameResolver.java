@@ -0,0 +1,200 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import jenkins.util.Timer;
+import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.Inet4Address;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Resolves the hostname of the Jenkins master from the system, via `/bin/hostname -f` or the
+ * localhost address. Resolving it forks a process, so it is only ever resolved in the background:
+ * when Jenkins starts, every 10 minutes after that, and when the global configuration is saved.
+ * Until then, no system hostname is available.
+ */
+public class HostnameResolver {
+
+    private static final Logger logger = Logger.getLogger(HostnameResolver.class.getName());
+
+    private static final String[] UNIX_OS = {"mac", "linux", "freebsd", "sunos"};
+
+    private static volatile Resolved cached;
+    private static final AtomicInteger resolutions = new AtomicInteger();
+
+    private HostnameResolver(){}
+
+    /**
+     * Never resolves the hostname, so that it can be called from any thread.
+     *
+     * @return the cached system hostname, null if no valid hostname was found or if it was not resolved yet.
+     */
+    public static String getSystemHostname() {
+        Resolved resolved = cached;
+        return resolved == null ? null : resolved.hostname;
+    }
+
+    /**
+     * Resolves the system hostname and caches it. Forks a process, only to be called from a background thread.
+     */
+    static void refresh() {
+        cached = new Resolved(resolve());
+    }
+
+    /**
+     * Drops the cached system hostname, e.g. when the configuration changed, and resolves it again
+     * in the background.
+     */
+    public static void invalidate() {
+        cached = null;
+        Timer.get().submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh();
+                } catch (Exception e) {
+                    logger.warning("Unexpected exception occurred - " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the number of times the system hostname was resolved.
+     */
+    static int getResolutions() {
+        return resolutions.get();
+    }
+
+    private static String resolve() {
+        resolutions.incrementAndGet();
+        String hostname = null;
+
+        // Check OS specific unix commands
+        if (Arrays.asList(UNIX_OS).contains(getOS())) {
+            // Attempt to grab unix hostname
+            try {
+                String[] cmd = {"/bin/hostname", "-f"};
+                Process proc = Runtime.getRuntime().exec(cmd);
+                InputStream in = proc.getInputStream();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+                StringBuilder out = new StringBuilder();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    out.append(line);
+                }
+                reader.close();
+
+                hostname = out.toString();
+            } catch (Exception e) {
+                logger.severe(e.getMessage());
+            }
+
+            // Check hostname
+            if (DatadogUtilities.isValidHostname(hostname)) {
+                logger.fine(String.format("Using unix hostname found via `/bin/hostname -f`. Hostname: %s",
+                        hostname));
+                return hostname;
+            }
+        }
+
+        // Check localhost hostname
+        try {
+            hostname = Inet4Address.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            logger.fine(String.format("Unknown hostname error received for localhost. Error: %s", e));
+        }
+        if (DatadogUtilities.isValidHostname(hostname)) {
+            logger.fine(String.format("Using hostname found via "
+                    + "Inet4Address.getLocalHost().getHostName()."
+                    + " Hostname: %s", hostname));
+            return hostname;
+        }
+        return null;
+    }
+
+    /**
+     * Human-friendly OS name. Commons return values are windows, linux, mac, sunos, freebsd
+     *
+     * @return a String with a human-friendly OS name
+     */
+    private static String getOS() {
+        String out = System.getProperty("os.name");
+        String os = out.split(" ")[0];
+        return os.toLowerCase();
+    }
+
+    /**
+     * The result of a resolution, so that a failed resolution is cached too.
+     */
+    private static class Resolved {
+        private final String hostname;
+
+        Resolved(String hostname) {
+            this.hostname = hostname;
+        }
+    }
+
+    @Extension
+    public static class Refresher extends AsyncPeriodicWork {
+
+        public Refresher() {
+            super("Datadog Hostname Refresher");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.MINUTES.toMillis(10);
+        }
+
+        @Override
+        public long getInitialDelay() {
+            return 0;
+        }
+
+        @Override
+        protected void execute(TaskListener taskListener) throws IOException, InterruptedException {
+            try {
+                logger.fine("Execute called: Resolving the system hostname");
+                refresh();
+            } catch (Exception e) {
+                logger.warning("Unexpected exception occurred - " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Decides which jobs are tracked, given the blacklist and whitelist global configuration. Both lists
+ * are compiled once into a single pattern each, and decisions are cached per job name.
+ *
+ * The matcher of the current configuration is kept until the configuration changes.
+ */
+public class JobMatcher {
+
+    private static final Logger logger = Logger.getLogger(JobMatcher.class.getName());
+
+    private static final int MAX_CACHED_DECISIONS = 10000;
+    // Group numbers shift when patterns are combined, patterns using back references are matched one by one
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+
+    private static volatile JobMatcher current;
+
+    private final String blacklist;
+    private final String whitelist;
+    private final List<Pattern> blacklistPatterns;
+    private final List<Pattern> whitelistPatterns;
+    private final LruCache<String, Boolean> decisions = new LruCache<>(MAX_CACHED_DECISIONS);
+
+    JobMatcher(String blacklist, String whitelist) {
+        this.blacklist = blacklist;
+        this.whitelist = whitelist;
+        this.blacklistPatterns = compile(blacklist);
+        this.whitelistPatterns = compile(whitelist);
+    }
+
+    /**
+     * @param blacklist - A comma separated list of job name patterns that are not tracked
+     * @param whitelist - A comma separated list of job name patterns that are tracked, all jobs if empty
+     * @return the matcher for the given configuration.
+     */
+    public static JobMatcher forConfiguration(String blacklist, String whitelist) {
+        JobMatcher matcher = current;
+        if (matcher == null || !equals(matcher.blacklist, blacklist) || !equals(matcher.whitelist, whitelist)) {
+            matcher = new JobMatcher(blacklist, whitelist);
+            current = matcher;
+        }
+        return matcher;
+    }
+
+    /**
+     * @param jobName - A String containing the name of some job.
+     * @return true if the job is not blacklisted and is whitelisted.
+     */
+    public boolean isTracked(String jobName) {
+        Boolean tracked = decisions.get(jobName);
+        if (tracked == null) {
+            tracked = !matches(blacklistPatterns, jobName, false) && matches(whitelistPatterns, jobName, true);
+            decisions.put(jobName, tracked);
+        }
+        return tracked;
+    }
+
+    private static boolean matches(List<Pattern> patterns, String jobName, boolean matchesIfEmpty) {
+        if (patterns.isEmpty()) {
+            return matchesIfEmpty;
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(jobName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> compile(String list) {
+        List<String> valid = new ArrayList<>();
+        List<Pattern> patterns = new ArrayList<>();
+        boolean combinable = true;
+        for (String regex : DatadogUtilities.cstrToList(list)) {
+            try {
+                patterns.add(Pattern.compile(regex));
+                valid.add(regex);
+                combinable &= !BACK_REFERENCE.matcher(regex).find();
+            } catch (PatternSyntaxException e) {
+                logger.warning(String.format("Ignoring invalid job name pattern '%s': %s", regex, e.getMessage()));
+            }
+        }
+        if (!combinable || valid.size() < 2) {
+            return patterns;
+        }
+
+        StringBuilder alternation = new StringBuilder();
+        for (String regex : valid) {
+            if (alternation.length() > 0) {
+                alternation.append('|');
+            }
+            alternation.append("(?:").append(regex).append(')');
+        }
+        List<Pattern> combined = new ArrayList<>();
+        try {
+            combined.add(Pattern.compile(alternation.toString()));
+        } catch (PatternSyntaxException e) {
+            // Valid patterns may not combine, e.g. an unterminated quote or the same named group twice
+            logger.fine("Matching job name patterns one by one: " + e.getMessage());
+            return patterns;
+        }
+        return combined;
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
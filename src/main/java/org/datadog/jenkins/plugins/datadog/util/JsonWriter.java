@@ -0,0 +1,347 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A minimal streaming JSON writer. Values are escaped and UTF-8 encoded in a single pass into an internal
+ * buffer that is written to the underlying stream when full, no intermediate object tree or String is built.
+ *
+ * This class is not thread safe.
+ */
+public class JsonWriter {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] NULL = "null".getBytes();
+    private static final byte[] TRUE = "true".getBytes();
+    private static final byte[] FALSE = "false".getBytes();
+    private static final int MAX_DEPTH = 32;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position = 0;
+
+    // For each nesting level, whether a value has already been written (so the next one needs a comma)
+    private final boolean[] hasValue = new boolean[MAX_DEPTH];
+    private int depth = 0;
+    private boolean afterName = false;
+
+    public JsonWriter(OutputStream out) {
+        this(out, 8192);
+    }
+
+    public JsonWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        // Leave room for at least a whole number
+        this.buffer = new byte[Math.max(bufferSize, 32)];
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * Writes the name of the next object member.
+     *
+     * @param name - the member name
+     * @return this writer
+     * @throws IOException if the underlying stream can't be written to
+     */
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separator();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separator();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            // Not representable in JSON
+            return nullValue();
+        }
+        separator();
+        if (value == (long) value) {
+            writeLong((long) value);
+        } else {
+            writeAscii(Double.toString(value));
+        }
+        return this;
+    }
+
+    public JsonWriter value(float value) throws IOException {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            return nullValue();
+        }
+        separator();
+        if (value == (long) value) {
+            writeLong((long) value);
+        } else {
+            writeAscii(Float.toString(value));
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separator();
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separator();
+        writeBytes(NULL);
+        return this;
+    }
+
+    /**
+     * Writes an already serialized JSON value.
+     *
+     * @param json - the UTF-8 encoded JSON value
+     * @return this writer
+     * @throws IOException if the underlying stream can't be written to
+     */
+    public JsonWriter rawValue(byte[] json) throws IOException {
+        separator();
+        writeBytes(json);
+        return this;
+    }
+
+    /**
+     * Writes tags as an array of "name:value" strings, or "name" when the tag has no value.
+     *
+     * @param tags - A Map of tag names and values
+     * @return this writer
+     * @throws IOException if the underlying stream can't be written to
+     */
+    public JsonWriter tags(Map<String, Set<String>> tags) throws IOException {
+        beginArray();
+        if (tags != null) {
+            for (Map.Entry<String, Set<String>> entry : tags.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                for (String value : entry.getValue()) {
+                    separator();
+                    writeByte('"');
+                    writeEscaped(entry.getKey());
+                    if (value != null && !value.isEmpty()) {
+                        writeByte(':');
+                        writeEscaped(value);
+                    }
+                    writeByte('"');
+                }
+            }
+        }
+        return endArray();
+    }
+
+    /**
+     * Writes any buffered bytes to the underlying stream.
+     *
+     * @throws IOException if the underlying stream can't be written to
+     */
+    public void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        out.flush();
+    }
+
+    private JsonWriter open(char c) throws IOException {
+        separator();
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting is too deep");
+        }
+        hasValue[depth++] = false;
+        writeByte(c);
+        return this;
+    }
+
+    private JsonWriter close(char c) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("No JSON object or array to close");
+        }
+        depth--;
+        writeByte(c);
+        return this;
+    }
+
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasValue[depth - 1]) {
+                writeByte(',');
+            }
+            hasValue[depth - 1] = true;
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        writeByte('"');
+        writeEscaped(s);
+        writeByte('"');
+    }
+
+    private void writeEscaped(String s) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '"':
+                    case '\\':
+                        writeByte('\\');
+                        writeByte(c);
+                        break;
+                    case '\n':
+                        writeByte('\\');
+                        writeByte('n');
+                        break;
+                    case '\r':
+                        writeByte('\\');
+                        writeByte('r');
+                        break;
+                    case '\t':
+                        writeByte('\\');
+                        writeByte('t');
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            writeByte('\\');
+                            writeByte('u');
+                            writeByte('0');
+                            writeByte('0');
+                            writeByte(HEX[c >> 4]);
+                            writeByte(HEX[c & 0xF]);
+                        } else {
+                            writeByte(c);
+                        }
+                }
+            } else if (c < 0x800) {
+                writeByte(0xC0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                writeByte(0xF0 | (codePoint >> 18));
+                writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                writeByte(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, can't be encoded
+                writeByte('?');
+            } else {
+                writeByte(0xE0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        if (buffer.length - position < 20) {
+            flushBuffer();
+        }
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        // Digits were written in reverse order
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    private void writeAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            writeByte(s.charAt(i));
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
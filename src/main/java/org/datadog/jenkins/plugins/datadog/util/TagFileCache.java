@@ -0,0 +1,219 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import hudson.FilePath;
+import hudson.model.Executor;
+import hudson.model.Run;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Caches the tag files read from build workspaces, per node name and path. The tag files of a node are
+ * evicted when it goes offline.
+ *
+ * A tag file is read with a single remote call that returns its last modified time and size along with
+ * its content. When the file has not changed since it was cached, the content is not transferred again
+ * and the parsed tags are reused. The most recently read tag files are kept.
+ */
+public final class TagFileCache {
+
+    private static final Logger logger = Logger.getLogger(TagFileCache.class.getName());
+
+    private static final int MAX_CACHED_TAG_FILES = 10000;
+    private static final LruCache<Key, TagFile> cache = new LruCache<>(MAX_CACHED_TAG_FILES);
+
+    private TagFileCache() { }
+
+    /**
+     * Reads a tag file from the workspace of a build.
+     *
+     * @param run - Current build
+     * @param relativePath - The path of the tag file, relative to the workspace
+     * @return the tag file, or null when the workspace or the file cannot be found.
+     */
+    public static TagFile read(Run run, String relativePath) {
+        if (run == null || relativePath == null || relativePath.trim().isEmpty()) {
+            return null;
+        }
+        //We need to make sure that the workspace has been created. When 'onStarted' is
+        //invoked, the workspace has not yet been established, so this check is necessary.
+        Executor executor = run.getExecutor();
+        FilePath workspace = executor == null ? null : executor.getCurrentWorkspace();
+        if (workspace == null) {
+            return null;
+        }
+        return read(DatadogUtilities.getNodeName(executor.getOwner()), new FilePath(workspace, relativePath));
+    }
+
+    /**
+     * Reads a tag file, reusing the cached content when the file has not changed.
+     *
+     * @param nodeName - The name of the node holding the file
+     * @param path     - The path of the tag file
+     * @return the tag file, or null when the file cannot be found or read.
+     */
+    public static TagFile read(String nodeName, FilePath path) {
+        Key key = new Key(nodeName, path.getRemote());
+        TagFile cached = cache.get(key);
+        try {
+            TagFile tagFile = path.act(new ReadTagFile(cached));
+            if (tagFile == null) {
+                cache.remove(key);
+                return null;
+            }
+            if (tagFile.getContent() == null) {
+                // Not modified, the agent did not send the content again
+                return cached;
+            }
+            cache.put(key, tagFile);
+            return tagFile;
+        } catch (IOException | InterruptedException e) {
+            logger.severe(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param nodeName - The name of a node that went offline
+     */
+    public static void evict(String nodeName) {
+        for (Key key : cache.keys()) {
+            if (key.nodeName.equals(nodeName)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * The content of a tag file and the tags it contains.
+     */
+    public static final class TagFile implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long lastModified;
+        private final long length;
+        private final String content;
+        private transient volatile List<String> tags;
+
+        TagFile(long lastModified, long length, String content) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.content = content;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * @return the tags of the file, as returned by {@link DatadogUtilities#tagListFromVarList(String)}.
+         * Variables are not expanded, they depend on the build.
+         */
+        public List<String> getTags() {
+            List<String> result = tags;
+            if (result == null) {
+                result = Collections.unmodifiableList(DatadogUtilities.tagListFromVarList(content));
+                tags = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Runs on the agent holding the file. Returns null when the file does not exist, and a tag file
+     * without content when it has not changed since the cached version.
+     */
+    private static final class ReadTagFile extends MasterToSlaveFileCallable<TagFile> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long knownLastModified;
+        private final long knownLength;
+
+        ReadTagFile(TagFile cached) {
+            this.knownLastModified = cached == null ? -1 : cached.getLastModified();
+            this.knownLength = cached == null ? -1 : cached.getLength();
+        }
+
+        @Override
+        public TagFile invoke(File f, VirtualChannel channel) throws IOException {
+            if (!f.isFile()) {
+                return null;
+            }
+            long lastModified = f.lastModified();
+            long length = f.length();
+            if (lastModified == knownLastModified && length == knownLength) {
+                return new TagFile(lastModified, length, null);
+            }
+            return new TagFile(lastModified, length, new String(Files.readAllBytes(f.toPath()), Charset.defaultCharset()));
+        }
+    }
+
+    private static final class Key {
+
+        private final String nodeName;
+        private final String remote;
+
+        Key(String nodeName, String remote) {
+            this.nodeName = nodeName;
+            this.remote = remote;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return nodeName.equals(other.nodeName) && remote.equals(other.remote);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * nodeName.hashCode() + remote.hashCode();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An immutable set of tags. Tags are formatted and sorted once, and the DogStatsD and JSON encodings
+ * are computed on first use and cached.
+ *
+ * Tag sets are interned by the map they are created from, so repeated emissions with the same tags
+ * share a single tag set and do no formatting work. The most recently used tag sets are kept.
+ * A 64-bit hash of the tags is computed once, for the keys built on tag sets to reuse.
+ */
+public final class TagSet {
+
+    public static final TagSet EMPTY = new TagSet(Collections.<String, Set<String>>emptyMap());
+
+    private static final int MAX_INTERNED_TAG_SETS = 10000;
+    private static final LruCache<Map<String, Set<String>>, TagSet> interned = new LruCache<>(MAX_INTERNED_TAG_SETS);
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String[] tags;
+    private final Map<String, Set<String>> tagMap;
+    private final int hash;
+    private final long longHash;
+    private volatile String dogStatsDTags;
+    private volatile byte[] jsonTags;
+
+    private TagSet(Map<String, Set<String>> tags) {
+        Map<String, Set<String>> tagMap = new TreeMap<>();
+        List<String> tagList = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : tags.entrySet()) {
+            Set<String> values = new TreeSet<>();
+            if (entry.getValue() != null) {
+                for (String value : entry.getValue()) {
+                    if (value == null) {
+                        continue;
+                    }
+                    values.add(value);
+                    tagList.add(value.isEmpty() ? entry.getKey() : entry.getKey() + ":" + value);
+                }
+            }
+            tagMap.put(entry.getKey(), Collections.unmodifiableSet(values));
+        }
+        this.tags = tagList.toArray(new String[0]);
+        Arrays.sort(this.tags);
+        this.tagMap = Collections.unmodifiableMap(tagMap);
+        this.hash = Arrays.hashCode(this.tags);
+        long longHash = FNV_OFFSET_BASIS;
+        for (String tag : this.tags) {
+            for (int i = 0; i < tag.length(); i++) {
+                longHash ^= tag.charAt(i);
+                longHash *= FNV_PRIME;
+            }
+            // Separator, so that ["ab", "c"] and ["a", "bc"] don't collide
+            longHash ^= 0xFFFF;
+            longHash *= FNV_PRIME;
+        }
+        this.longHash = longHash;
+    }
+
+    /**
+     * @param tags - the tags, may be null
+     * @return the tag set holding the given tags.
+     */
+    public static TagSet of(Map<String, Set<String>> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return EMPTY;
+        }
+        // Looking up by the map itself only hashes the (cached) hash codes of the tag strings
+        TagSet tagSet = interned.get(tags);
+        if (tagSet != null) {
+            return tagSet;
+        }
+        tagSet = new TagSet(tags);
+        TagSet existing = interned.putIfAbsent(copy(tags), tagSet);
+        return existing != null ? existing : tagSet;
+    }
+
+    private static Map<String, Set<String>> copy(Map<String, Set<String>> tags) {
+        // The caller may modify its map later on, keep the entries as they are for the lookups to match
+        Map<String, Set<String>> copy = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : tags.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue() == null ? null : new HashSet<>(entry.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * The returned array is shared and must not be modified.
+     *
+     * @return the sorted tags, formatted as "name:value", or "name" when the tag has no value.
+     */
+    public String[] toArray() {
+        return tags;
+    }
+
+    public int size() {
+        return tags.length;
+    }
+
+    public boolean isEmpty() {
+        return tags.length == 0;
+    }
+
+    /**
+     * @return an unmodifiable, sorted copy of the tags the set was created from.
+     */
+    public Map<String, Set<String>> getTagMap() {
+        return tagMap;
+    }
+
+    /**
+     * @return the 64-bit FNV-1a hash of the sorted tags.
+     */
+    public long getLongHash() {
+        return longHash;
+    }
+
+    /**
+     * @return the tags in the DogStatsD datagram format, e.g. "|#a:b,c:d", or an empty String if there are no tags.
+     */
+    public String getDogStatsDTags() {
+        String encoded = dogStatsDTags;
+        if (encoded == null) {
+            if (tags.length == 0) {
+                encoded = "";
+            } else {
+                StringBuilder sb = new StringBuilder("|#");
+                for (int i = 0; i < tags.length; i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(tags[i]);
+                }
+                encoded = sb.toString();
+            }
+            dogStatsDTags = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * The returned array is shared and must not be modified.
+     *
+     * @return the tags serialized as a UTF-8 JSON array.
+     */
+    public byte[] getJsonTags() {
+        byte[] json = jsonTags;
+        if (json == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                JsonWriter writer = new JsonWriter(out, 256);
+                writer.beginArray();
+                for (String tag : tags) {
+                    writer.value(tag);
+                }
+                writer.endArray();
+                writer.flush();
+            } catch (IOException e) {
+                // Can't happen when writing to memory
+                throw new IllegalStateException(e);
+            }
+            json = out.toByteArray();
+            jsonTags = json;
+        }
+        return json;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TagSet)) return false;
+
+        TagSet that = (TagSet) o;
+        return hash == that.hash && Arrays.equals(tags, that.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(tags);
+    }
+}
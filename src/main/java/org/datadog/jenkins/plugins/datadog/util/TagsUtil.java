@@ -60,7 +60,7 @@ public class TagsUtil {
                 if ("".equals(value)){
                     result.add(name); // Tag with no value
                 }else{
-                    result.add(String.format("%s:%s", name, value));
+                    result.add(name + ":" + value);
                 }
             }
         }
@@ -68,18 +68,6 @@ public class TagsUtil {
     }
 
     public static String[] convertTagsToArray(Map<String, Set<String>> tags){
-        List<String> result = new ArrayList<>();
-        for (String name : tags.keySet()) {
-            Set<String> values = tags.get(name);
-            for (String value : values){
-                if("".equals(value)){
-                    result.add(name);
-                }else{
-                    result.add(String.format("%s:%s", name, value));
-                }
-            }
-        }
-        Collections.sort(result);
-        return result.toArray(new String[0]);
+        return TagSet.of(tags).toArray().clone();
     }
 }
@@ -71,4 +71,17 @@ public class DatadogUtilitiesTest {
         Assert.assertTrue(DatadogUtilities.linesToList(" \n item1 \n item2 \n ").equals(items));
     }
 
+    @Test
+    public void testIsValidHostname(){
+        Assert.assertFalse(DatadogUtilities.isValidHostname(null));
+        Assert.assertFalse(DatadogUtilities.isValidHostname(""));
+        Assert.assertFalse(DatadogUtilities.isValidHostname("localhost"));
+        Assert.assertFalse(DatadogUtilities.isValidHostname("LOCALHOST.localdomain"));
+        Assert.assertFalse(DatadogUtilities.isValidHostname("-jenkins"));
+        Assert.assertFalse(DatadogUtilities.isValidHostname("jenkins_master"));
+
+        Assert.assertTrue(DatadogUtilities.isValidHostname("jenkins"));
+        Assert.assertTrue(DatadogUtilities.isValidHostname("jenkins-master.example.com"));
+    }
+
 }
@@ -0,0 +1,161 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.datadog.jenkins.plugins.datadog.DatadogClient;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncDatadogClientTest {
+
+    @Test
+    public void testSubmissionsAreSentByTheSenderThread() throws InterruptedException {
+        DatadogClientStub stub = new DatadogClientStub();
+        AsyncDatadogClient client = new AsyncDatadogClient(stub, 100, AsyncDatadogClient.OverflowPolicy.DROP_NEWEST, 0);
+        Map<String, Set<String>> tags = new HashMap<>();
+        tags = DatadogClientStub.addTagToMap(tags, "tag1", "value");
+
+        Assert.assertTrue(client.gauge("metric1", 1, "host1", tags));
+        Assert.assertTrue(client.serviceCheck("check1", DatadogClient.Status.OK, "host1", tags));
+        waitForSentCount(client, 2);
+
+        stub.assertMetric("metric1", 1, "host1", new String[]{"tag1:value"});
+        stub.assertServiceCheck("check1", 0, "host1", new String[]{"tag1:value"});
+        stub.assertedAllMetricsAndServiceChecks();
+        Assert.assertTrue(client.getEnqueuedCount() == 2);
+        Assert.assertTrue(client.getDroppedCount() == 0);
+    }
+
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        BlockingClientStub stub = new BlockingClientStub();
+        AsyncDatadogClient client = new AsyncDatadogClient(stub, 1, AsyncDatadogClient.OverflowPolicy.DROP_NEWEST, 0);
+        Map<String, Set<String>> tags = new HashMap<>();
+
+        // The first submission blocks the sender thread, the second one fills the queue
+        client.gauge("metric1", 1, "host1", tags);
+        Assert.assertTrue(stub.started.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(client.gauge("metric2", 2, "host1", tags));
+        Assert.assertFalse(client.gauge("metric3", 3, "host1", tags));
+
+        stub.release.countDown();
+        waitForSentCount(client, 2);
+        Assert.assertTrue(client.getDroppedCount() == 1);
+        stub.assertMetric("metric1", 1, "host1", new String[]{});
+        stub.assertMetric("metric2", 2, "host1", new String[]{});
+        stub.assertedAllMetricsAndServiceChecks();
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        BlockingClientStub stub = new BlockingClientStub();
+        AsyncDatadogClient client = new AsyncDatadogClient(stub, 1, AsyncDatadogClient.OverflowPolicy.DROP_OLDEST, 0);
+        Map<String, Set<String>> tags = new HashMap<>();
+
+        client.gauge("metric1", 1, "host1", tags);
+        Assert.assertTrue(stub.started.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(client.gauge("metric2", 2, "host1", tags));
+        Assert.assertTrue(client.gauge("metric3", 3, "host1", tags));
+
+        stub.release.countDown();
+        waitForSentCount(client, 2);
+        Assert.assertTrue(client.getDroppedCount() == 1);
+        stub.assertMetric("metric1", 1, "host1", new String[]{});
+        stub.assertMetric("metric3", 3, "host1", new String[]{});
+        stub.assertedAllMetricsAndServiceChecks();
+    }
+
+    @Test
+    public void testBlockWithDeadline() throws InterruptedException {
+        BlockingClientStub stub = new BlockingClientStub();
+        AsyncDatadogClient client = new AsyncDatadogClient(stub, 1, AsyncDatadogClient.OverflowPolicy.BLOCK, 50);
+        Map<String, Set<String>> tags = new HashMap<>();
+
+        client.gauge("metric1", 1, "host1", tags);
+        Assert.assertTrue(stub.started.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(client.gauge("metric2", 2, "host1", tags));
+        long start = System.nanoTime();
+        Assert.assertFalse(client.gauge("metric3", 3, "host1", tags));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        stub.release.countDown();
+        waitForSentCount(client, 2);
+        Assert.assertTrue(client.getDroppedCount() == 1);
+    }
+
+    @Test
+    public void testSenderSurvivesErrors() throws InterruptedException {
+        DatadogClientStub stub = new DatadogClientStub() {
+            @Override
+            public boolean gauge(String name, long value, String hostname, Map<String, Set<String>> tags) {
+                if ("failing".equals(name)) {
+                    throw new AssertionError("failing delegate");
+                }
+                return super.gauge(name, value, hostname, tags);
+            }
+        };
+        AsyncDatadogClient client = new AsyncDatadogClient(stub, 100, AsyncDatadogClient.OverflowPolicy.DROP_NEWEST, 0);
+        Map<String, Set<String>> tags = new HashMap<>();
+
+        Assert.assertTrue(client.gauge("failing", 1, "host1", tags));
+        Assert.assertTrue(client.gauge("metric1", 1, "host1", tags));
+        waitForSentCount(client, 1);
+        stub.assertMetric("metric1", 1, "host1", new String[0]);
+    }
+
+    private static void waitForSentCount(AsyncDatadogClient client, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (client.getSentCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue("sent = " + client.getSentCount(), client.getSentCount() == count);
+    }
+
+    /**
+     * Blocks the sender thread on the first submission until released.
+     */
+    private static class BlockingClientStub extends DatadogClientStub {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public boolean gauge(String name, long value, String hostname, Map<String, Set<String>> tags) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.gauge(name, value, hostname, tags);
+        }
+    }
+}
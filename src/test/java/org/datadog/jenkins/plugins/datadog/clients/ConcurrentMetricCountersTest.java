@@ -0,0 +1,121 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+public class ConcurrentMetricCountersTest {
+
+    @Test
+    public void testNoIncrementLostDuringFlush() throws InterruptedException {
+        final ConcurrentMetricCounters counters = ConcurrentMetricCounters.getInstance();
+        counters.getAndReset();
+
+        final int threads = 8;
+        final int increments = 20000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final Map<String, Set<String>> tags = new HashMap<>();
+            DatadogClientStub.addTagToMap(tags, "thread", String.valueOf(t % 2));
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < increments; i++) {
+                        counters.increment("metric", "host", tags);
+                    }
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        start.countDown();
+        long total = 0;
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread writer : writers) {
+                running |= writer.isAlive();
+            }
+            // Flush while writers are incrementing
+            for (Integer value : counters.getAndReset().values()) {
+                total += value;
+            }
+        }
+        for (Integer value : counters.getAndReset().values()) {
+            total += value;
+        }
+        Assert.assertTrue("total = " + total, total == threads * increments);
+    }
+
+    @Test
+    public void testAggregatesByMetric() {
+        ConcurrentMetricCounters counters = ConcurrentMetricCounters.getInstance();
+        counters.getAndReset();
+
+        Map<String, Set<String>> tags = new HashMap<>();
+        DatadogClientStub.addTagToMap(tags, "tag1", "value");
+        counters.increment("metric1", "host", tags);
+        counters.increment("metric1", "host", new HashMap<>(tags));
+        counters.increment("metric2", "host", tags);
+
+        ConcurrentMap<CounterMetric, Integer> values = counters.getAndReset();
+        Assert.assertTrue(values.size() == 2);
+        Assert.assertTrue(values.get(new CounterMetric(tags, "metric1", "host")) == 2);
+        Assert.assertTrue(values.get(new CounterMetric(tags, "metric2", "host")) == 1);
+        Assert.assertTrue(counters.getAndReset().isEmpty());
+    }
+
+    @Test
+    public void testAdd() {
+        ConcurrentMetricCounters counters = ConcurrentMetricCounters.getInstance();
+        counters.getAndReset();
+
+        Map<String, Set<String>> tags = new HashMap<>();
+        DatadogClientStub.addTagToMap(tags, "label", "linux");
+        counters.add("jenkins.executor.busy_seconds", 60, "host", tags);
+        counters.add("jenkins.executor.busy_seconds", 15, "host", tags);
+        counters.increment("jenkins.executor.busy_seconds", "host", tags);
+
+        ConcurrentMap<CounterMetric, Integer> values = counters.getAndReset();
+        Assert.assertTrue(values.get(new CounterMetric(tags, "jenkins.executor.busy_seconds", "host")) == 76);
+    }
+}
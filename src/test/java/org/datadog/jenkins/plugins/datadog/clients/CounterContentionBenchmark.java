@@ -0,0 +1,143 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures counter increment throughput under contention, compared with the previous synchronized
+ * implementation. Counters are flushed every 10ms, as they would be by the counters publisher.
+ *
+ * Not run as part of the test suite, run it with the main method from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CounterContentionBenchmark {
+
+    @State(Scope.Thread)
+    public static class ThreadTags {
+        Map<String, Set<String>> tags;
+
+        @Setup
+        public void setup() {
+            tags = new HashMap<>();
+            DatadogClientStub.addTagToMap(tags, "job", "job-" + (Thread.currentThread().getId() % 8));
+            DatadogClientStub.addTagToMap(tags, "result", "SUCCESS");
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Flusher {
+        private volatile long lastFlush = System.nanoTime();
+
+        void maybeFlush(Runnable flush) {
+            long now = System.nanoTime();
+            if (now - lastFlush > TimeUnit.MILLISECONDS.toNanos(10)) {
+                lastFlush = now;
+                flush.run();
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SynchronizedCounters {
+        private ConcurrentMap<CounterMetric, Integer> counters = new ConcurrentHashMap<>();
+
+        synchronized void increment(String name, String hostname, Map<String, Set<String>> tags) {
+            CounterMetric counterMetric = new CounterMetric(tags, name, hostname);
+            Integer previousValue = counters.putIfAbsent(counterMetric, 1);
+            if (previousValue != null) {
+                boolean ok = counters.replace(counterMetric, previousValue, previousValue + 1);
+                while (!ok) {
+                    previousValue = counters.get(counterMetric);
+                    ok = counters.replace(counterMetric, previousValue, previousValue + 1);
+                }
+            }
+        }
+
+        synchronized ConcurrentMap<CounterMetric, Integer> getAndReset() {
+            ConcurrentMap<CounterMetric, Integer> previous = counters;
+            counters = new ConcurrentHashMap<>();
+            return previous;
+        }
+    }
+
+    @Benchmark
+    public void striped(ThreadTags threadTags, Flusher flusher) {
+        final ConcurrentMetricCounters counters = ConcurrentMetricCounters.getInstance();
+        counters.increment("jenkins.job.started", "jenkins-master", threadTags.tags);
+        flusher.maybeFlush(new Runnable() {
+            @Override
+            public void run() {
+                counters.getAndReset();
+            }
+        });
+    }
+
+    @Benchmark
+    public void synchronizedBaseline(ThreadTags threadTags, Flusher flusher, final SynchronizedCounters counters) {
+        counters.increment("jenkins.job.started", "jenkins-master", threadTags.tags);
+        flusher.maybeFlush(new Runnable() {
+            @Override
+            public void run() {
+                counters.getAndReset();
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(CounterContentionBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -72,15 +72,20 @@ public class DatadogClientStub implements DatadogClient {
 
     @Override
     public void incrementCounter(String name, String hostname, Map<String, Set<String>> tags) {
+        incrementCounter(name, 1, hostname, tags);
+    }
+
+    @Override
+    public void incrementCounter(String name, long value, String hostname, Map<String, Set<String>> tags) {
         for (DatadogMetric m : this.metrics) {
             if(m.same(new DatadogMetric(name, 0, hostname, convertTagMapToList(tags)))) {
-                double value = m.getValue() + 1;
+                double sum = m.getValue() + value;
                 this.metrics.remove(m);
-                this.metrics.add(new DatadogMetric(name, value, hostname, convertTagMapToList(tags)));
+                this.metrics.add(new DatadogMetric(name, sum, hostname, convertTagMapToList(tags)));
                 return;
             }
         }
-        this.metrics.add(new DatadogMetric(name, 1, hostname, convertTagMapToList(tags)));
+        this.metrics.add(new DatadogMetric(name, value, hostname, convertTagMapToList(tags)));
     }
 
     @Override
@@ -94,6 +99,12 @@ public class DatadogClientStub implements DatadogClient {
         return true;
     }
 
+    @Override
+    public boolean distribution(String name, double value, String hostname, Map<String, Set<String>> tags) {
+        this.metrics.add(new DatadogMetric(name, value, hostname, convertTagMapToList(tags)));
+        return true;
+    }
+
     @Override
     public boolean serviceCheck(String name, Status status, String hostname, Map<String, Set<String>> tags) {
         this.serviceChecks.add(new DatadogMetric(name, status.toValue(), hostname, convertTagMapToList(tags)));
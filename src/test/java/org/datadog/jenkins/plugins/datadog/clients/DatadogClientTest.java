@@ -29,14 +29,41 @@ import org.datadog.jenkins.plugins.datadog.DatadogClient;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class DatadogClientTest {
 
+    @Test
+    public void testDistributionValuesAreNotDownsampled() throws IOException {
+        DistributionAggregator aggregator = new DistributionAggregator();
+        for (int i = 0; i < 2500; i++) {
+            aggregator.add("jenkins.job.duration", 60, "host", null);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DatadogHttpClient.distributionWriter(aggregator.drain()).writeTo(out);
+
+        // The values are split over several points, each holding at most 1000 values
+        Matcher point = Pattern.compile("\\[\\d+,\\[([^\\]]*)\\]\\]").matcher(new String(out.toByteArray(), StandardCharsets.UTF_8));
+        int points = 0;
+        int values = 0;
+        while (point.find()) {
+            int pointValues = point.group(1).split(",").length;
+            Assert.assertTrue(pointValues <= DistributionAggregator.MAX_VALUES_PER_POINT);
+            points++;
+            values += pointValues;
+        }
+        Assert.assertTrue(points == 3);
+        Assert.assertTrue(values == 2500);
+    }
+
     @Test
     public void testIncrementCountAndFlush() throws IOException, InterruptedException {
         DatadogHttpClient.enableValidations = false;
@@ -0,0 +1,93 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import jnr.unixsocket.UnixDatagramChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import org.datadog.jenkins.plugins.datadog.DatadogClient;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class DogStatsDClientTest {
+
+    @Test
+    public void testUnixDomainSocket() throws Exception {
+        File socketFile = new File(System.getProperty("java.io.tmpdir"), "dsd-" + System.nanoTime() + ".socket");
+        UnixDatagramChannel server = UnixDatagramChannel.open();
+        try {
+            server.bind(new UnixSocketAddress(socketFile));
+            server.configureBlocking(false);
+
+            DatadogClient client = DogStatsDClient.getInstance(null, 0, socketFile.getAbsolutePath());
+            Map<String, Set<String>> tags = new HashMap<>();
+            tags = DatadogClientStub.addTagToMap(tags, "tag1", "value");
+            client.gauge("jenkins.test.gauge", 42, null, tags);
+
+            // The connection is opened in the background, metrics are kept aggregated until then
+            String received = "";
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!received.contains("jenkins.test.gauge") && System.currentTimeMillis() < deadline) {
+                client.flushCounters();
+                buffer.clear();
+                if (server.receive(buffer) == null) {
+                    Thread.sleep(10);
+                    continue;
+                }
+                buffer.flip();
+                received += StandardCharsets.UTF_8.decode(buffer).toString();
+            }
+            Assert.assertTrue(received, received.contains("jenkins.test.gauge:42|g|#tag1:value"));
+        } finally {
+            server.close();
+            socketFile.delete();
+        }
+    }
+
+    @Test
+    public void testDistributionLine() {
+        Map<String, Set<String>> tags = new HashMap<>();
+        tags = DatadogClientStub.addTagToMap(tags, "tag1", "value");
+        MetricKey key = MetricKey.of("jenkins.queue.waiting", null, tags);
+
+        Assert.assertEquals("jenkins.queue.waiting:2.5|d|#tag1:value", DogStatsDClient.distributionLine(key, 2.5, 1));
+        Assert.assertEquals("jenkins.queue.waiting:3|d|@0.25|#tag1:value", DogStatsDClient.distributionLine(key, 3, 4));
+
+        // The Agent counts a sampled value as many times as the truncated inverse of the sample rate
+        for (long count = 2; count < 10000; count++) {
+            String line = DogStatsDClient.distributionLine(key, 3, count);
+            String sampleRate = line.substring(line.indexOf("|@") + 2, line.indexOf("|#"));
+            Assert.assertEquals(count, (long) (1 / Double.parseDouble(sampleRate)));
+        }
+    }
+}
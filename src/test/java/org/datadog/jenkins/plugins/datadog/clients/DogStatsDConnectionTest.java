@@ -0,0 +1,116 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import com.timgroup.statsd.StatsDClientErrorHandler;
+import jnr.unixsocket.UnixDatagramChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class DogStatsDConnectionTest {
+
+    private static final StatsDClientErrorHandler errorHandler = new StatsDClientErrorHandler() {
+        @Override
+        public void handle(Exception exception) {
+        }
+    };
+
+    @Test
+    public void testReconnectDelay() {
+        for (int failures = 1; failures < 30; failures++) {
+            long max = Math.min(60000, 1000L << Math.min(failures, 16));
+            long delay = DogStatsDConnection.getReconnectDelay(failures);
+            // Half of the delay is random jitter
+            Assert.assertTrue("delay = " + delay, delay >= max / 2 && delay <= max);
+        }
+    }
+
+    @Test
+    public void testFailuresAndTargetChange() throws Exception {
+        File missingSocketFile = new File(System.getProperty("java.io.tmpdir"), "dsd-missing-" + System.nanoTime() + ".socket");
+        File socketFile = new File(System.getProperty("java.io.tmpdir"), "dsd-" + System.nanoTime() + ".socket");
+        UnixDatagramChannel server = UnixDatagramChannel.open();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            server.bind(new UnixSocketAddress(socketFile));
+            DogStatsDConnection connection = new DogStatsDConnection(null, 0, missingSocketFile.getAbsolutePath(),
+                    errorHandler, executor);
+
+            // The first attempt fails, the next one waits for the backoff delay
+            long deadline = System.currentTimeMillis() + 5000;
+            while (connection.getFailures() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(connection.getFailures() == 1);
+            Assert.assertNull(connection.get());
+            long delay = connection.getReconnectDelayMillis();
+            Assert.assertTrue("delay = " + delay, delay >= 1000 && delay <= 2000);
+
+            // A new target is connected to right away, without waiting for the backoff delay
+            connection.setTarget(null, 0, socketFile.getAbsolutePath());
+            DogStatsDConnection.Session session = waitForSession(connection, 500);
+            Assert.assertTrue(connection.getFailures() == 0);
+
+            // A failed session is replaced after the backoff delay
+            connection.failed(session, new IOException("test failure"));
+            Assert.assertNull(connection.get());
+            Assert.assertTrue(connection.getFailures() == 1);
+            delay = connection.getReconnectDelayMillis();
+            Assert.assertTrue("delay = " + delay, delay >= 1000 && delay <= 2000);
+
+            // Failures of a session already replaced are ignored, and so is setting the same target
+            connection.failed(session, new IOException("test failure"));
+            connection.setTarget(null, 0, socketFile.getAbsolutePath());
+            Assert.assertTrue(connection.getFailures() == 1);
+            Assert.assertTrue(connection.getReconnectDelayMillis() == delay);
+
+            DogStatsDConnection.Session reconnected = waitForSession(connection, 5000);
+            Assert.assertFalse(reconnected == session);
+            Assert.assertTrue(connection.getFailures() == 0);
+            Assert.assertTrue(connection.getReconnectDelayMillis() == -1);
+        } finally {
+            executor.shutdownNow();
+            server.close();
+            socketFile.delete();
+        }
+    }
+
+    private static DogStatsDConnection.Session waitForSession(DogStatsDConnection connection, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (connection.get() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertNotNull(connection.get());
+        return connection.get();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DogStatsDPacketBuilderTest {
+
+    private static class RecordingChannel implements WritableByteChannel {
+        private final List<String> packets = new ArrayList<>();
+        private boolean full = false;
+        private boolean closed = false;
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+            if (full) {
+                return 0;
+            }
+            int size = src.remaining();
+            packets.add(StandardCharsets.UTF_8.decode(src).toString());
+            return size;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testPacking() throws IOException {
+        RecordingChannel channel = new RecordingChannel();
+        DogStatsDPacketBuilder builder = new DogStatsDPacketBuilder(channel, 32);
+        long packets = PluginMetrics.getValue(DogStatsDPacketBuilder.PACKETS_METRIC);
+        long bytes = PluginMetrics.getValue(DogStatsDPacketBuilder.BYTES_METRIC);
+
+        Assert.assertTrue(builder.add("a.metric:1|c"));
+        Assert.assertFalse(builder.add("b.metric:2|g"));
+        Assert.assertTrue(channel.packets.isEmpty());
+
+        // The third line doesn't fit in the 32 bytes packet
+        Assert.assertTrue(builder.add("c.metric:3|d"));
+        Assert.assertEquals(1, channel.packets.size());
+        Assert.assertEquals("a.metric:1|c\nb.metric:2|g", channel.packets.get(0));
+
+        builder.flush();
+        builder.flush();
+        Assert.assertEquals(2, channel.packets.size());
+        Assert.assertEquals("c.metric:3|d", channel.packets.get(1));
+        Assert.assertEquals(packets + 2, PluginMetrics.getValue(DogStatsDPacketBuilder.PACKETS_METRIC));
+        Assert.assertEquals(bytes + 25 + 12, PluginMetrics.getValue(DogStatsDPacketBuilder.BYTES_METRIC));
+    }
+
+    @Test
+    public void testDrops() throws IOException {
+        RecordingChannel channel = new RecordingChannel();
+        DogStatsDPacketBuilder builder = new DogStatsDPacketBuilder(channel, 16);
+        long dropped = PluginMetrics.getValue(DogStatsDClient.DROPPED_METRIC);
+
+        // Larger than a packet
+        Assert.assertFalse(builder.add("a.very.long.metric.name:1|c"));
+        builder.flush();
+        Assert.assertTrue(channel.packets.isEmpty());
+
+        // Socket buffer full
+        channel.full = true;
+        builder.add("a.metric:1|c");
+        builder.flush();
+        Assert.assertTrue(channel.packets.isEmpty());
+        Assert.assertEquals(dropped + 2, PluginMetrics.getValue(DogStatsDClient.DROPPED_METRIC));
+
+        // Closed channel
+        channel.full = false;
+        channel.closed = true;
+        builder.add("b.metric:2|c");
+        try {
+            builder.flush();
+            Assert.fail("The write error must be thrown");
+        } catch (IOException e) {
+            Assert.assertEquals(dropped + 3, PluginMetrics.getValue(DogStatsDClient.DROPPED_METRIC));
+        }
+
+        channel.closed = false;
+        builder.add("b.metric:2|c");
+        builder.flush();
+        Assert.assertEquals(1, channel.packets.size());
+        Assert.assertEquals("b.metric:2|c", channel.packets.get(0));
+    }
+}
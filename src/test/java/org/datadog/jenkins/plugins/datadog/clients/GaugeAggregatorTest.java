@@ -0,0 +1,75 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class GaugeAggregatorTest {
+
+    @Test
+    public void testLastValueWins() {
+        GaugeAggregator aggregator = new GaugeAggregator();
+        Map<String, Set<String>> tags = new HashMap<>();
+        tags = DatadogClientStub.addTagToMap(tags, "node_name", "linux-1");
+        aggregator.set("jenkins.executor.count", 1, "host", tags);
+        aggregator.set("jenkins.executor.count", 2, "host", tags);
+        aggregator.set("jenkins.executor.count", 3, "host", tags);
+        aggregator.set("jenkins.executor.free", 4, "host", tags);
+        Assert.assertTrue(aggregator.size() == 2);
+
+        List<GaugeAggregator.Sample> samples = aggregator.drain();
+        Assert.assertTrue(samples.size() == 2);
+        for (GaugeAggregator.Sample sample : samples) {
+            if (sample.getKey().getMetricName().equals("jenkins.executor.count")) {
+                Assert.assertTrue(sample.getValue() == 3);
+            } else {
+                Assert.assertTrue(sample.getValue() == 4);
+            }
+            Assert.assertEquals(tags, sample.getKey().getTagMap());
+            Assert.assertTrue(sample.getTimestamp() > 0);
+        }
+        Assert.assertTrue(aggregator.size() == 0);
+        Assert.assertTrue(aggregator.drain().isEmpty());
+    }
+
+    @Test
+    public void testSeriesAreDistinct() {
+        GaugeAggregator aggregator = new GaugeAggregator();
+        Map<String, Set<String>> tags1 = DatadogClientStub.addTagToMap(new HashMap<String, Set<String>>(), "node_name", "linux-1");
+        Map<String, Set<String>> tags2 = DatadogClientStub.addTagToMap(new HashMap<String, Set<String>>(), "node_name", "linux-2");
+        aggregator.set("jenkins.executor.count", 1, "host", tags1);
+        aggregator.set("jenkins.executor.count", 1, "host", tags2);
+        aggregator.set("jenkins.executor.count", 1, "other", tags1);
+        aggregator.set("jenkins.executor.count", 1, "host", null);
+        Assert.assertTrue(aggregator.drain().size() == 4);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class MetricKeyTest {
+
+    @Test
+    public void testInterning() {
+        Map<String, Set<String>> tags1 = new LinkedHashMap<>();
+        tags1 = DatadogClientStub.addTagToMap(tags1, "job", "build");
+        tags1 = DatadogClientStub.addTagToMap(tags1, "branch", "master");
+        Map<String, Set<String>> tags2 = new LinkedHashMap<>();
+        tags2 = DatadogClientStub.addTagToMap(tags2, "branch", "master");
+        tags2 = DatadogClientStub.addTagToMap(tags2, "job", "build");
+
+        MetricKey key1 = MetricKey.of("jenkins.job.completed", "host", tags1);
+        MetricKey key2 = MetricKey.of("jenkins.job.completed", "host", tags2);
+        Assert.assertTrue(key1 == key2);
+        Assert.assertTrue(key1.getHash() == key2.getHash());
+
+        Assert.assertFalse(key1.equals(MetricKey.of("jenkins.job.completed", "other", tags1)));
+        Assert.assertFalse(key1.equals(MetricKey.of("jenkins.job.started", "host", tags1)));
+        tags2 = DatadogClientStub.addTagToMap(tags2, "result", "SUCCESS");
+        Assert.assertFalse(key1.equals(MetricKey.of("jenkins.job.completed", "host", tags2)));
+    }
+
+    @Test
+    public void testInterningWithoutHostname() {
+        Map<String, Set<String>> tags = new HashMap<>();
+        tags = DatadogClientStub.addTagToMap(tags, "job", "build");
+
+        MetricKey key = MetricKey.of("jenkins.job.started", null, tags);
+        Assert.assertTrue(key == MetricKey.of("jenkins.job.started", null, new HashMap<>(tags)));
+        Assert.assertNull(key.getHostname());
+        Assert.assertFalse(key.equals(MetricKey.of("jenkins.job.started", "", tags)));
+    }
+
+    @Test
+    public void testSortedTags() {
+        Map<String, Set<String>> tags = new HashMap<>();
+        tags = DatadogClientStub.addTagToMap(tags, "node_label", "linux");
+        tags = DatadogClientStub.addTagToMap(tags, "node_label", "docker");
+        tags = DatadogClientStub.addTagToMap(tags, "fork", "");
+        MetricKey key = MetricKey.of("jenkins.executor.count", null, tags);
+
+        Assert.assertArrayEquals(new String[]{"fork", "node_label:docker", "node_label:linux"}, key.getTags());
+        Assert.assertEquals("[\"fork\",\"node_label:docker\",\"node_label:linux\"]",
+                new String(key.getJsonTags(), StandardCharsets.UTF_8));
+        Assert.assertTrue(key.getJsonTags() == key.getJsonTags());
+        Assert.assertEquals(tags, key.getTagMap());
+    }
+
+    @Test
+    public void testNullTags() {
+        MetricKey key = MetricKey.of("jenkins.job.started", "host", null);
+        Assert.assertTrue(key.getTagCount() == 0);
+        Assert.assertTrue(key.getTagMap().isEmpty());
+        Assert.assertEquals("[]", new String(key.getJsonTags(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OutboxTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static class RecordingSender implements Outbox.Sender {
+        private final List<String> payloads = new ArrayList<>();
+        private int failAfter;
+
+        RecordingSender(int failAfter) {
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public boolean send(String type, byte[] payload) {
+            if (payloads.size() >= failAfter) {
+                return false;
+            }
+            payloads.add(type + " " + new String(payload, StandardCharsets.UTF_8));
+            return true;
+        }
+    }
+
+    private static byte[] payload(int i) {
+        return ("{\"series\":" + i + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testReplayInOrder() throws IOException, InterruptedException {
+        File directory = folder.newFolder();
+        // Small segments so that records span several segments
+        Outbox outbox = new Outbox(directory, 1024 * 1024, 60000, 64);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(outbox.append("v1/series", payload(i)));
+        }
+        Assert.assertFalse(outbox.isEmpty());
+
+        RecordingSender sender = new RecordingSender(Integer.MAX_VALUE);
+        Assert.assertTrue(outbox.replay(sender, 100, 0) == 10);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("v1/series " + new String(payload(i), StandardCharsets.UTF_8), sender.payloads.get(i));
+        }
+        Assert.assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    public void testReplayResumesAfterFailure() throws IOException, InterruptedException {
+        File directory = folder.newFolder();
+        Outbox outbox = new Outbox(directory, 1024 * 1024, 60000, 1024);
+        for (int i = 0; i < 5; i++) {
+            outbox.append("v1/events", payload(i));
+        }
+
+        RecordingSender failing = new RecordingSender(2);
+        Assert.assertTrue(outbox.replay(failing, 100, 0) == 2);
+        outbox.close();
+
+        // The replay position survives a restart
+        Outbox reloaded = new Outbox(directory, 1024 * 1024, 60000, 1024);
+        RecordingSender sender = new RecordingSender(Integer.MAX_VALUE);
+        Assert.assertTrue(reloaded.replay(sender, 100, 0) == 3);
+        Assert.assertEquals("v1/events " + new String(payload(2), StandardCharsets.UTF_8), sender.payloads.get(0));
+        Assert.assertTrue(reloaded.isEmpty());
+    }
+
+    @Test
+    public void testRetentionBySize() throws IOException, InterruptedException {
+        File directory = folder.newFolder();
+        // Each segment holds a single record and only two segments fit in the outbox
+        int recordSize = 2 + "v1/series".length() + 8 + 4 + payload(0).length + 8;
+        Outbox outbox = new Outbox(directory, 2 * recordSize, 60000, 1);
+        for (int i = 0; i < 5; i++) {
+            outbox.append("v1/series", payload(i));
+        }
+
+        RecordingSender sender = new RecordingSender(Integer.MAX_VALUE);
+        outbox.replay(sender, 100, 0);
+        Assert.assertTrue("sent = " + sender.payloads.size(), sender.payloads.size() == 2);
+        Assert.assertEquals("v1/series " + new String(payload(3), StandardCharsets.UTF_8), sender.payloads.get(0));
+    }
+
+    @Test
+    public void testRetentionByAge() throws IOException, InterruptedException {
+        File directory = folder.newFolder();
+        Outbox outbox = new Outbox(directory, 1024 * 1024, -1, 1024);
+        outbox.append("v1/series", payload(0));
+
+        RecordingSender sender = new RecordingSender(Integer.MAX_VALUE);
+        Assert.assertTrue(outbox.replay(sender, 100, 0) == 0);
+        Assert.assertTrue(outbox.isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+public class PayloadEntityTest {
+
+    private static final String PAYLOAD;
+    static {
+        StringBuilder sb = new StringBuilder("{\"series\":[");
+        for (int i = 0; i < 100; i++) {
+            sb.append("{\"metric\":\"jenkins.executor.count\",\"tags\":[\"node_label:linux\",\"node_name:master\"]},");
+        }
+        PAYLOAD = sb.append("{}]}").toString();
+    }
+
+    private static PayloadEntity entity(PayloadEntity.Compression compression) {
+        return new PayloadEntity(new PayloadEntity.Writer() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+            }
+        }, compression);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testNoCompression() throws IOException {
+        PayloadEntity entity = entity(PayloadEntity.Compression.NONE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+
+        Assert.assertNull(entity.getContentEncoding());
+        Assert.assertEquals(PAYLOAD, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertTrue(entity.getRawBytes() == PAYLOAD.length());
+        Assert.assertTrue(entity.getCompressedBytes() == PAYLOAD.length());
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        PayloadEntity entity = entity(PayloadEntity.Compression.GZIP);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+
+        Assert.assertEquals("gzip", entity.getContentEncoding().getValue());
+        Assert.assertEquals(PAYLOAD, read(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))));
+        Assert.assertTrue(entity.getRawBytes() == PAYLOAD.length());
+        Assert.assertTrue(entity.getCompressedBytes() == out.size());
+        Assert.assertTrue(entity.getCompressedBytes() < entity.getRawBytes());
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        PayloadEntity entity = entity(PayloadEntity.Compression.DEFLATE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+
+        Assert.assertEquals("deflate", entity.getContentEncoding().getValue());
+        Assert.assertEquals(PAYLOAD, read(new InflaterInputStream(new ByteArrayInputStream(out.toByteArray()))));
+        Assert.assertTrue(entity.getCompressedBytes() == out.size());
+        Assert.assertTrue(entity.getCompressedBytes() < entity.getRawBytes());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.1, 0.5, 0.9, 0.95, 0.99, 1};
+
+    @Test
+    public void testRelativeAccuracy() {
+        Random random = new Random(42);
+        QuantileSketch sketch = new QuantileSketch();
+        double[] values = new double[10000];
+        for (int i = 0; i < values.length; i++) {
+            // Long tailed, like build durations
+            values[i] = Math.exp(random.nextGaussian() * 2 + 5);
+            sketch.accept(values[i]);
+        }
+        assertAccurate(sketch, values, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+        Assert.assertTrue(sketch.getCount() == values.length);
+    }
+
+    @Test
+    public void testNegativeAndZeroValues() {
+        QuantileSketch sketch = new QuantileSketch();
+        double[] values = new double[201];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i - 100;
+            sketch.accept(values[i]);
+        }
+        assertAccurate(sketch, values, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+        Assert.assertEquals(0, sketch.getQuantile(0.5), 0);
+        Assert.assertEquals(-100, sketch.getMin(), 0);
+        Assert.assertEquals(100, sketch.getMax(), 0);
+        Assert.assertEquals(0, sketch.getSum(), 0);
+    }
+
+    @Test
+    public void testMerge() {
+        Random random = new Random(7);
+        QuantileSketch sketch1 = new QuantileSketch();
+        QuantileSketch sketch2 = new QuantileSketch();
+        double[] values = new double[2000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + random.nextDouble() * (i < 1000 ? 10 : 10000);
+            (i < 1000 ? sketch1 : sketch2).accept(values[i]);
+        }
+        sketch1.merge(sketch2);
+        assertAccurate(sketch1, values, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    @Test
+    public void testBoundedBins() {
+        QuantileSketch sketch = new QuantileSketch(0.01, 100);
+        for (int i = 1; i <= 100000; i++) {
+            sketch.accept(i);
+        }
+        Assert.assertTrue(sketch.getBins().size() <= 100);
+        Assert.assertTrue(sketch.getCount() == 100000);
+        // Only the lowest values are collapsed
+        Assert.assertEquals(99000, sketch.getQuantile(0.99), 99000 * 0.01);
+        Assert.assertEquals(1, sketch.getQuantile(0), 0);
+    }
+
+    @Test
+    public void testBins() {
+        QuantileSketch sketch = new QuantileSketch();
+        Assert.assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        Assert.assertTrue(sketch.getBins().isEmpty());
+
+        // Bins keep the real counts, whatever the number of values
+        sketch.accept(10, 5);
+        sketch.accept(1000, 15000);
+        List<QuantileSketch.Bin> bins = sketch.getBins();
+        Assert.assertTrue(bins.size() == 2);
+        Assert.assertEquals(10, bins.get(0).getValue(), 0.1);
+        Assert.assertTrue(bins.get(0).getCount() == 5);
+        Assert.assertEquals(1000, bins.get(1).getValue(), 10);
+        Assert.assertTrue(bins.get(1).getCount() == 15000);
+    }
+
+    @Test
+    public void testAggregator() {
+        DistributionAggregator aggregator = new DistributionAggregator();
+        Map<String, Set<String>> tags = DatadogClientStub.addTagToMap(new HashMap<String, Set<String>>(), "job", "build");
+        for (int i = 1; i <= 100; i++) {
+            aggregator.add("jenkins.job.duration", i, "host", tags);
+        }
+        aggregator.add("jenkins.job.waiting", 1, "host", tags);
+
+        List<DistributionAggregator.Sample> samples = aggregator.drain();
+        Assert.assertTrue(samples.size() == 2);
+        for (DistributionAggregator.Sample sample : samples) {
+            if (sample.getKey().getMetricName().equals("jenkins.job.duration")) {
+                Assert.assertTrue(sample.getSketch().getCount() == 100);
+                Assert.assertEquals(50, sample.getSketch().getQuantile(0.5), 0.5);
+            } else {
+                Assert.assertTrue(sample.getSketch().getCount() == 1);
+            }
+        }
+        Assert.assertTrue(aggregator.drain().isEmpty());
+    }
+
+    private static void assertAccurate(QuantileSketch sketch, double[] values, double relativeAccuracy) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double quantile : QUANTILES) {
+            double expected = sorted[(int) (quantile * (sorted.length - 1))];
+            double actual = sketch.getQuantile(quantile);
+            Assert.assertTrue("quantile " + quantile + ": expected " + expected + ", got " + actual,
+                    Math.abs(actual - expected) <= Math.abs(expected) * relativeAccuracy + 1e-9);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SeriesBufferTest {
+
+    private static SeriesBuffer.Point point(String name) {
+        Map<String, Set<String>> tags = new HashMap<>();
+        tags = DatadogClientStub.addTagToMap(tags, "tag1", "value");
+        return new SeriesBuffer.Point(name, "host1", tags, "gauge", 0, 1, null);
+    }
+
+    @Test
+    public void testFlushOnSize() {
+        SeriesBuffer buffer = new SeriesBuffer(3, 60000, SeriesBuffer.DEFAULT_MAX_PAYLOAD_BYTES);
+        Assert.assertFalse(buffer.add(point("metric1")));
+        Assert.assertFalse(buffer.add(point("metric2")));
+        Assert.assertTrue(buffer.add(point("metric3")));
+
+        List<List<SeriesBuffer.Point>> batches = buffer.drain();
+        Assert.assertTrue("batches = " + batches.size(), batches.size() == 1);
+        Assert.assertTrue("points = " + batches.get(0).size(), batches.get(0).size() == 3);
+        Assert.assertTrue(buffer.size() == 0);
+        Assert.assertTrue(buffer.drain().isEmpty());
+    }
+
+    @Test
+    public void testFlushOnAge() {
+        SeriesBuffer buffer = new SeriesBuffer(1000, 0, SeriesBuffer.DEFAULT_MAX_PAYLOAD_BYTES);
+        Assert.assertFalse(buffer.shouldFlush());
+        Assert.assertTrue(buffer.add(point("metric1")));
+    }
+
+    @Test
+    public void testSplitOnPayloadSize() {
+        int pointSize = point("metric").estimateSize();
+        // Only two points fit in a single payload
+        SeriesBuffer buffer = new SeriesBuffer(1000, 60000, 2 * pointSize + 20);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(point("metric"));
+        }
+
+        List<List<SeriesBuffer.Point>> batches = buffer.drain();
+        Assert.assertTrue("batches = " + batches.size(), batches.size() == 3);
+        Assert.assertTrue(batches.get(0).size() == 2);
+        Assert.assertTrue(batches.get(1).size() == 2);
+        Assert.assertTrue(batches.get(2).size() == 1);
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.clients;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.datadog.jenkins.plugins.datadog.util.TagsUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the net.sf.json serialization of series payloads with the streaming JsonWriter.
+ *
+ * Not run as part of the test suite, run it with the main method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeriesSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    public int points;
+
+    private List<SeriesBuffer.Point> batch;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        batch = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            Map<String, Set<String>> tags = new HashMap<>();
+            tags = DatadogClientStub.addTagToMap(tags, "node_name", "agent-" + (i % 20));
+            tags = DatadogClientStub.addTagToMap(tags, "node_label", "linux");
+            tags = DatadogClientStub.addTagToMap(tags, "node_label", "docker");
+            tags = DatadogClientStub.addTagToMap(tags, "jenkins_url", "https://jenkins.example.com/");
+            batch.add(new SeriesBuffer.Point("jenkins.executor.count", "jenkins-master", tags, "gauge",
+                    1500000000L + i, i, null));
+        }
+        out = new ByteArrayOutputStream(points * 256);
+    }
+
+    @Benchmark
+    public byte[] jsonObjectTree() {
+        JSONArray series = new JSONArray();
+        for (SeriesBuffer.Point p : batch) {
+            JSONArray points = new JSONArray();
+            JSONArray point = new JSONArray();
+            point.add(p.getTimestamp());
+            point.add(p.getValue());
+            points.add(point);
+
+            JSONObject metric = new JSONObject();
+            metric.put("metric", p.getMetricName());
+            metric.put("points", points);
+            metric.put("type", p.getType());
+            metric.put("host", p.getHostname());
+            metric.put("tags", TagsUtil.convertTagsToJSONArray(p.getTags()));
+            series.add(metric);
+        }
+        JSONObject payload = new JSONObject();
+        payload.put("series", series);
+        return payload.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int streamingWriter() throws IOException {
+        out.reset();
+        DatadogHttpClient.seriesWriter(batch).writeTo(out);
+        return out.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SeriesSerializationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
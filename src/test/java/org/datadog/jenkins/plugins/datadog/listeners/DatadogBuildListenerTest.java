@@ -176,12 +176,14 @@ public class DatadogBuildListenerTest {
         expectedTags2[3] = "branch:test-branch";
         client.assertMetric("jenkins.job.duration", 122, "null", expectedTags2);
         client.assertMetric("jenkins.job.feedbacktime", 122, "null", expectedTags2);
+        client.assertMetric("jenkins.job.mtbf", 2000-1000, "null", expectedTags2);
         client.assertServiceCheck("jenkins.job.status", 2, "null", expectedTags2);
 
         when(DatadogUtilities.getTagsFromGlobalTags()).thenReturn(new HashMap<String, Set<String>>());
         datadogBuildListener.onCompleted(previousFailedRun2, mock(TaskListener.class));
         client.assertMetric("jenkins.job.duration", 123, "null", expectedTags2);
         client.assertMetric("jenkins.job.feedbacktime", 123, "null", expectedTags2);
+        client.assertMetric("jenkins.job.mtbf", 3000-1000, "null", expectedTags2);
         client.assertMetric("jenkins.job.completed", 2, "null", expectedTags2);
         client.assertServiceCheck("jenkins.job.status", 2, "null", expectedTags2);
 
@@ -0,0 +1,131 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.model;
+
+import hudson.EnvVars;
+import hudson.model.*;
+import org.datadog.jenkins.plugins.datadog.DatadogUtilities;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({DatadogUtilities.class})
+public class BuildDataCacheTest {
+
+    @Test
+    public void testCachedUntilEvicted() throws IOException, InterruptedException {
+        PowerMockito.mockStatic(DatadogUtilities.class);
+        when(DatadogUtilities.getHostname(any(String.class))).thenReturn("test-hostname");
+
+        Run run = mockRun("job#1");
+        TaskListener listener = mock(TaskListener.class);
+
+        BuildData buildData = BuildDataCache.get(run, listener);
+        Assert.assertTrue(buildData.getResult(null) == null);
+
+        // Only the result, duration and end time are refreshed
+        when(run.getResult()).thenReturn(Result.SUCCESS);
+        when(run.getDuration()).thenReturn(5000L);
+        Assert.assertTrue(BuildDataCache.get(run, listener) == buildData);
+        Assert.assertTrue(BuildDataCache.get(run, null) == buildData);
+        Assert.assertTrue(buildData.getResult(null).equals("SUCCESS"));
+        Assert.assertTrue(buildData.getDuration(null) == 5000L);
+        Assert.assertTrue(buildData.getEndTime(null) == 6000L);
+
+        BuildDataCache.evict(run);
+        Assert.assertFalse(BuildDataCache.get(run, listener) == buildData);
+        BuildDataCache.evict(run);
+    }
+
+    @Test
+    public void testCheckedOut() throws IOException, InterruptedException {
+        PowerMockito.mockStatic(DatadogUtilities.class);
+        when(DatadogUtilities.getHostname(any(String.class))).thenReturn("test-hostname");
+
+        Run run = mockRun("job#3");
+        TaskListener listener = mock(TaskListener.class);
+
+        BuildData buildData = BuildDataCache.get(run, listener);
+        Assert.assertTrue(buildData.getBranch(null) == null);
+        Assert.assertTrue(buildData.getHostname(null).equals("test-hostname"));
+
+        // The entry is kept, only the values read from the environment are collected again
+        EnvVars envVars = new EnvVars();
+        envVars.put("GIT_BRANCH", "master");
+        when(run.getEnvironment(any(TaskListener.class))).thenReturn(envVars);
+        when(DatadogUtilities.getHostname(any(String.class))).thenReturn("other-hostname");
+        BuildDataCache.checkedOut(run, listener);
+        Assert.assertTrue(BuildDataCache.get(run, listener) == buildData);
+        Assert.assertTrue(buildData.getBranch(null).equals("master"));
+        Assert.assertTrue(buildData.getTags().get("branch").contains("master"));
+        Assert.assertTrue(buildData.getHostname(null).equals("test-hostname"));
+        BuildDataCache.evict(run);
+    }
+
+    @Test
+    public void testNotCachedWithoutListener() throws IOException, InterruptedException {
+        PowerMockito.mockStatic(DatadogUtilities.class);
+
+        Run run = mockRun("job#2");
+        Assert.assertFalse(BuildDataCache.get(run, null) == BuildDataCache.get(run, null));
+    }
+
+    @Test
+    public void testNotCachedWithoutId() throws IOException, InterruptedException {
+        PowerMockito.mockStatic(DatadogUtilities.class);
+
+        Run run = mockRun(null);
+        TaskListener listener = mock(TaskListener.class);
+        Assert.assertFalse(BuildDataCache.get(run, listener) == BuildDataCache.get(run, listener));
+    }
+
+    private static Run mockRun(String id) throws IOException, InterruptedException {
+        ItemGroup parent = mock(ItemGroup.class);
+        when(parent.getFullName()).thenReturn("parent");
+
+        Job job = mock(Job.class);
+        when(job.getParent()).thenReturn(parent);
+        when(job.getFullName()).thenReturn("parent/job");
+
+        Run run = mock(Run.class);
+        when(run.getExternalizableId()).thenReturn(id);
+        when(run.getStartTimeInMillis()).thenReturn(1000L);
+        when(run.getResult()).thenReturn(null);
+        when(run.getEnvironment(any(TaskListener.class))).thenReturn(null);
+        when(run.getParent()).thenReturn(job);
+        return run;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class ExecutorTrackerTest {
+
+    @Test
+    public void testBusyMillis() {
+        ExecutorTracker.Key linux = new ExecutorTracker.Key("agent-1", "linux");
+        ExecutorTracker.Key none = new ExecutorTracker.Key("agent-1", "none");
+
+        ExecutorTracker.started("job#1", "agent-1", "linux", 1000);
+        ExecutorTracker.started("job#2", "agent-1", "linux", 2000);
+        ExecutorTracker.started("other#1", "agent-1", "none", 3000);
+
+        // Running builds count up to the time of the report
+        Map<ExecutorTracker.Key, Long> busy = ExecutorTracker.getBusyMillis(4000);
+        Assert.assertEquals(Long.valueOf(5000), busy.get(linux));
+        Assert.assertEquals(Long.valueOf(1000), busy.get(none));
+
+        ExecutorTracker.completed("job#1", 5000);
+        // Completing twice or an unknown build is ignored
+        ExecutorTracker.completed("job#1", 9000);
+        ExecutorTracker.completed("unknown#1", 9000);
+        ExecutorTracker.completed(null, 9000);
+
+        busy = ExecutorTracker.getBusyMillis(6000);
+        Assert.assertEquals(Long.valueOf(8000), busy.get(linux));
+        Assert.assertEquals(Long.valueOf(3000), busy.get(none));
+
+        ExecutorTracker.completed("job#2", 7000);
+        ExecutorTracker.completed("other#1", 7000);
+        busy = ExecutorTracker.getBusyMillis(100000);
+        Assert.assertEquals(Long.valueOf(9000), busy.get(linux));
+        Assert.assertEquals(Long.valueOf(4000), busy.get(none));
+    }
+}
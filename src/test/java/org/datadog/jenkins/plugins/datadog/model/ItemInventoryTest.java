@@ -0,0 +1,71 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class ItemInventoryTest {
+
+    @Test
+    public void testInventory() {
+        long jobs = ItemInventory.getJobCount();
+        ItemInventory.Key folders = new ItemInventory.Key("Folder", "/");
+        ItemInventory.Key teamJobs = new ItemInventory.Key("WorkflowJob", "team");
+        ItemInventory.Key renamedJobs = new ItemInventory.Key("WorkflowJob", "renamed");
+
+        ItemInventory.put("team", "Folder", "/", false);
+        ItemInventory.put("team/build", "WorkflowJob", "team", true);
+        ItemInventory.put("team/deploy", "WorkflowJob", "team", true);
+        // Adding an item twice, e.g. when seeding, counts it once
+        ItemInventory.put("team/deploy", "WorkflowJob", "team", true);
+        Map<ItemInventory.Key, Long> counts = ItemInventory.getCounts();
+        Assert.assertEquals(Long.valueOf(1), counts.get(folders));
+        Assert.assertEquals(Long.valueOf(2), counts.get(teamJobs));
+        Assert.assertEquals(jobs + 2, ItemInventory.getJobCount());
+
+        // A moved folder and the items it contains are notified one by one
+        ItemInventory.remove("team");
+        ItemInventory.put("renamed", "Folder", "/", false);
+        ItemInventory.remove("team/build");
+        ItemInventory.put("renamed/build", "WorkflowJob", "renamed", true);
+        ItemInventory.remove("team/deploy");
+        ItemInventory.put("renamed/deploy", "WorkflowJob", "renamed", true);
+        counts = ItemInventory.getCounts();
+        Assert.assertNull(counts.get(teamJobs));
+        Assert.assertEquals(Long.valueOf(2), counts.get(renamedJobs));
+        Assert.assertEquals(jobs + 2, ItemInventory.getJobCount());
+
+        // A deleted folder takes the items it contains with it
+        ItemInventory.removeAll("renamed");
+        counts = ItemInventory.getCounts();
+        Assert.assertNull(counts.get(folders));
+        Assert.assertNull(counts.get(renamedJobs));
+        Assert.assertEquals(jobs, ItemInventory.getJobCount());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package org.datadog.jenkins.plugins.datadog.model;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JobReliabilityTest {
+
+    private File rootDir;
+    private Job job;
+
+    @Before
+    public void setUp() throws IOException {
+        rootDir = Files.createTempDirectory("job").toFile();
+        job = mock(Job.class);
+        when(job.getRootDir()).thenReturn(rootDir);
+    }
+
+    @After
+    public void tearDown() {
+        JobReliability.clearCache();
+        File[] files = rootDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Assert.assertTrue(file.delete());
+            }
+        }
+        Assert.assertTrue(rootDir.delete());
+    }
+
+    @Test
+    public void testSeededFromHistory() {
+        Run success = mockRun(2, Result.SUCCESS, 1000, 500);
+        Run failure1 = mockRun(3, Result.FAILURE, 2000, 500);
+        when(failure1.getPreviousBuiltBuild()).thenReturn(success);
+        Run failure2 = mockRun(4, Result.FAILURE, 3000, 500);
+        when(failure2.getPreviousBuiltBuild()).thenReturn(failure1);
+
+        Run run = mockRun(5, Result.SUCCESS, 5000, 1000);
+        when(run.getPreviousBuiltBuild()).thenReturn(failure2);
+        when(run.getPreviousSuccessfulBuild()).thenReturn(success);
+        when(run.getPreviousNotFailedBuild()).thenReturn(success);
+
+        JobReliability.Times times = JobReliability.record(run);
+        Assert.assertTrue(times.getMeanTimeToRecovery() == 5000 - 2000);
+        Assert.assertTrue(times.getCycleTime() == 6000 - 1500);
+        Assert.assertTrue(times.getMeanTimeBetweenFailure() == 0);
+    }
+
+    @Test
+    public void testPersistedAndReloaded() {
+        JobReliability.record(mockRun(1, Result.SUCCESS, 1000, 500));
+        Assert.assertTrue(new File(rootDir, "datadog-reliability.xml").isFile());
+
+        // The build history is not available anymore, the state is loaded from the job directory
+        JobReliability.clearCache();
+        JobReliability.Times times = JobReliability.record(mockRun(2, Result.FAILURE, 3000, 500));
+        Assert.assertTrue(times.getMeanTimeBetweenFailure() == 3000 - 1000);
+
+        JobReliability.clearCache();
+        times = JobReliability.record(mockRun(3, Result.SUCCESS, 4000, 500));
+        Assert.assertTrue(times.getMeanTimeToRecovery() == 4000 - 3000);
+        Assert.assertTrue(times.getCycleTime() == 4500 - 1500);
+    }
+
+    @Test
+    public void testOutOfOrderCompletion() {
+        JobReliability.record(mockRun(1, Result.SUCCESS, 1000, 500));
+        JobReliability.record(mockRun(3, Result.FAILURE, 3000, 500));
+
+        // Build 2 completes last, it doesn't end the failure streak of build 3 that started after it
+        JobReliability.Times times = JobReliability.record(mockRun(2, Result.SUCCESS, 2000, 2000));
+        Assert.assertTrue(times.getMeanTimeToRecovery() == 0);
+
+        times = JobReliability.record(mockRun(4, Result.SUCCESS, 5000, 500));
+        Assert.assertTrue(times.getMeanTimeToRecovery() == 5000 - 3000);
+        Assert.assertTrue(times.getCycleTime() == 5500 - 1500);
+    }
+
+    @Test
+    public void testUnstableAndNotBuiltStreak() {
+        // Not built builds don't start a failure streak, unstable builds do but are not failures
+        JobReliability.record(mockRun(1, Result.NOT_BUILT, 1000, 500));
+        JobReliability.record(mockRun(2, Result.UNSTABLE, 2000, 500));
+
+        JobReliability.Times times = JobReliability.record(mockRun(3, Result.FAILURE, 3000, 500));
+        Assert.assertTrue(times.getMeanTimeBetweenFailure() == 3000 - 2000);
+
+        times = JobReliability.record(mockRun(4, Result.SUCCESS, 4000, 500));
+        Assert.assertTrue(times.getMeanTimeToRecovery() == 4000 - 2000);
+        Assert.assertTrue(times.getCycleTime() == 0);
+    }
+
+    private Run mockRun(int number, Result result, long startTime, long duration) {
+        Run run = mock(Run.class);
+        when(run.getParent()).thenReturn(job);
+        when(run.getNumber()).thenReturn(number);
+        when(run.getResult()).thenReturn(result);
+        when(run.getStartTimeInMillis()).thenReturn(startTime);
+        when(run.getDuration()).thenReturn(duration);
+        return run;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueueTrackerTest {
+
+    @Test
+    public void testTransitions() {
+        long size = QueueTracker.getSize();
+        long buildable = QueueTracker.getCount(QueueTracker.State.BUILDABLE);
+        long blocked = QueueTracker.getCount(QueueTracker.State.BLOCKED);
+
+        QueueTracker.enter(101, QueueTracker.State.WAITING);
+        QueueTracker.enter(102, QueueTracker.State.WAITING);
+        QueueTracker.leave(101, QueueTracker.State.WAITING);
+        QueueTracker.enter(101, QueueTracker.State.BLOCKED);
+        QueueTracker.leave(102, QueueTracker.State.WAITING);
+        QueueTracker.enter(102, QueueTracker.State.BUILDABLE);
+        Assert.assertEquals(size + 2, QueueTracker.getSize());
+        Assert.assertEquals(buildable + 1, QueueTracker.getCount(QueueTracker.State.BUILDABLE));
+        Assert.assertEquals(blocked + 1, QueueTracker.getCount(QueueTracker.State.BLOCKED));
+
+        // Leaving a state the item is not in is ignored
+        QueueTracker.leave(101, QueueTracker.State.BUILDABLE);
+        Assert.assertEquals(blocked + 1, QueueTracker.getCount(QueueTracker.State.BLOCKED));
+
+        QueueTracker.leave(102, QueueTracker.State.BUILDABLE);
+        QueueTracker.left(102, 5000);
+        QueueTracker.left(101, -1);
+        Assert.assertEquals(size, QueueTracker.getSize());
+        Assert.assertEquals(buildable, QueueTracker.getCount(QueueTracker.State.BUILDABLE));
+        Assert.assertEquals(blocked, QueueTracker.getCount(QueueTracker.State.BLOCKED));
+
+        Assert.assertEquals(Long.valueOf(5000), QueueTracker.removeWaitingTime(102));
+        Assert.assertNull(QueueTracker.removeWaitingTime(102));
+        Assert.assertNull(QueueTracker.removeWaitingTime(101));
+    }
+
+    @Test
+    public void testMaxSize() {
+        QueueTracker.getAndResetMaxSize();
+        long size = QueueTracker.getSize();
+        QueueTracker.enter(201, QueueTracker.State.WAITING);
+        QueueTracker.enter(202, QueueTracker.State.WAITING);
+        QueueTracker.left(201, 0);
+        QueueTracker.left(202, 0);
+        Assert.assertEquals(size + 2, QueueTracker.getAndResetMaxSize());
+        Assert.assertEquals(size, QueueTracker.getAndResetMaxSize());
+    }
+
+    @Test
+    public void testWaitingTimesEviction() {
+        QueueTracker.left(301, 1000);
+        for (long id = 400; id < 1400; id++) {
+            QueueTracker.left(id, 0);
+        }
+        // The oldest waiting times are evicted first
+        Assert.assertNull(QueueTracker.removeWaitingTime(301));
+        Assert.assertEquals(Long.valueOf(0), QueueTracker.removeWaitingTime(400));
+        Assert.assertEquals(Long.valueOf(0), QueueTracker.removeWaitingTime(1399));
+        for (long id = 401; id < 1399; id++) {
+            QueueTracker.removeWaitingTime(id);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+public class GlobalTagRulesTest {
+
+    @Test
+    public void testGlobalTags() {
+        GlobalTagRules rules = new GlobalTagRules("env:Prod, team : core\nfork,price:$1", null);
+        Map<String, Set<String>> tags = rules.getGlobalTags();
+        Assert.assertTrue(tags.size() == 4);
+        Assert.assertTrue(tags.get("env").contains("prod"));
+        Assert.assertTrue(tags.get("team").contains("core"));
+        Assert.assertTrue(tags.get("fork").contains(""));
+        Assert.assertTrue(tags.get("price").contains("$1"));
+        Assert.assertTrue(rules.getJobTags("job").isEmpty());
+    }
+
+    @Test
+    public void testJobTags() {
+        GlobalTagRules rules = new GlobalTagRules(null,
+                "(.*?)-job, owner:$1, static\n" +
+                "(a)(b)(c)(d)(e)(f)(g)(h)(i)(j)(k)(L), last:$12, team:team-$1-$2, missing:$13\n" +
+                "[invalid, tag:value");
+
+        Map<String, Set<String>> tags = rules.getJobTags("Backend-job");
+        Assert.assertTrue(tags.size() == 2);
+        Assert.assertTrue(tags.get("owner").contains("backend"));
+        Assert.assertTrue(tags.get("static").contains(""));
+
+        tags = rules.getJobTags("abcdefghijkL");
+        Assert.assertTrue(tags.size() == 2);
+        Assert.assertTrue(tags.get("last").contains("l"));
+        Assert.assertTrue(tags.get("team").contains("team-a-b"));
+
+        Assert.assertTrue(rules.getJobTags("other").isEmpty());
+        // Results are cached
+        Assert.assertTrue(rules.getJobTags("Backend-job") == rules.getJobTags("Backend-job"));
+    }
+
+    @Test
+    public void testOverflowingGroupReference() {
+        GlobalTagRules rules = new GlobalTagRules(null, "(.*)-job, build:$99999999999, owner:$1");
+        Map<String, Set<String>> tags = rules.getJobTags("backend-job");
+        Assert.assertTrue(tags.get("build").contains("$99999999999"));
+        Assert.assertTrue(tags.get("owner").contains("backend"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testTagsAreImmutable() {
+        GlobalTagRules rules = new GlobalTagRules("env:prod", null);
+        rules.getGlobalTags().get("env").add("dev");
+    }
+
+    @Test
+    public void testForConfiguration() {
+        GlobalTagRules rules = GlobalTagRules.forConfiguration("env:prod", "");
+        Assert.assertTrue(rules == GlobalTagRules.forConfiguration("env:prod", ""));
+        Assert.assertFalse(rules == GlobalTagRules.forConfiguration("env:dev", ""));
+        Assert.assertTrue(GlobalTagRules.forConfiguration("env:dev", "").getGlobalTags().get("env").contains("dev"));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package org.datadog.jenkins.plugins.datadog.util;
+
+import net.sf.json.JSONObject;
+import org.datadog.jenkins.plugins.datadog.DatadogGlobalConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kohsuke.stapler.StaplerRequest;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+
+public class HostnameResolverTest {
+
+    @Test
+    public void testCachedReads() {
+        HostnameResolver.refresh();
+        int resolutions = HostnameResolver.getResolutions();
+        String hostname = HostnameResolver.getSystemHostname();
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(hostname, HostnameResolver.getSystemHostname());
+        }
+        Assert.assertEquals(resolutions, HostnameResolver.getResolutions());
+    }
+
+    @Test
+    public void testConfigureInvalidates() throws Exception {
+        HostnameResolver.refresh();
+        int resolutions = HostnameResolver.getResolutions();
+
+        DatadogGlobalConfiguration cfg = mock(DatadogGlobalConfiguration.class);
+        doCallRealMethod().when(cfg).configure(any(StaplerRequest.class), any(JSONObject.class));
+        JSONObject formData = new JSONObject();
+        for (String key : new String[]{"reportWith", "targetApiURL", "targetApiKey", "targetHost", "targetSocketPath",
+                "hostname", "blacklist", "whitelist", "globalTagFile", "globalTags", "globalJobTags"}) {
+            formData.put(key, "");
+        }
+        formData.put("targetPort", 8125);
+        formData.put("emitSecurityEvents", true);
+        formData.put("emitSystemEvents", true);
+        cfg.configure(mock(StaplerRequest.class), formData);
+
+        // The hostname is resolved again in the background, never by the caller
+        long deadline = System.currentTimeMillis() + 10000;
+        while (HostnameResolver.getResolutions() == resolutions && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(HostnameResolver.getResolutions() > resolutions);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JobMatcherTest {
+
+    @Test
+    public void testNoConfiguration() {
+        JobMatcher matcher = new JobMatcher(null, "");
+        Assert.assertTrue(matcher.isTracked("job"));
+        Assert.assertTrue(matcher.isTracked("folder/job"));
+    }
+
+    @Test
+    public void testBlacklist() {
+        JobMatcher matcher = new JobMatcher("test-.*, staging/.*", null);
+        Assert.assertFalse(matcher.isTracked("test-job"));
+        Assert.assertFalse(matcher.isTracked("staging/deploy"));
+        Assert.assertTrue(matcher.isTracked("prod/deploy"));
+        // Patterns must match the whole job name
+        Assert.assertTrue(matcher.isTracked("my-test-job"));
+    }
+
+    @Test
+    public void testWhitelist() {
+        JobMatcher matcher = new JobMatcher("prod/skip", "prod/.*,release");
+        Assert.assertTrue(matcher.isTracked("prod/deploy"));
+        Assert.assertTrue(matcher.isTracked("release"));
+        Assert.assertFalse(matcher.isTracked("release-candidate"));
+        Assert.assertFalse(matcher.isTracked("prod/skip"));
+        // Decisions are cached
+        Assert.assertFalse(matcher.isTracked("prod/skip"));
+    }
+
+    @Test
+    public void testBackReferenceAndInvalidPatterns() {
+        JobMatcher matcher = new JobMatcher("(a+)-\\1,[invalid,b.*", null);
+        Assert.assertFalse(matcher.isTracked("aa-aa"));
+        Assert.assertTrue(matcher.isTracked("aa-a"));
+        Assert.assertFalse(matcher.isTracked("build"));
+        Assert.assertTrue(matcher.isTracked("[invalid"));
+    }
+
+    @Test
+    public void testPatternsThatDontCombine() {
+        JobMatcher matcher = new JobMatcher("\\Qa.b,c", null);
+        Assert.assertFalse(matcher.isTracked("a.b"));
+        Assert.assertFalse(matcher.isTracked("c"));
+        Assert.assertTrue(matcher.isTracked("axb"));
+
+        matcher = new JobMatcher("(?<name>x).*,(?<name>y).*", null);
+        Assert.assertFalse(matcher.isTracked("x1"));
+        Assert.assertFalse(matcher.isTracked("y1"));
+        Assert.assertTrue(matcher.isTracked("z1"));
+    }
+
+    @Test
+    public void testForConfiguration() {
+        JobMatcher matcher = JobMatcher.forConfiguration("a", "b");
+        Assert.assertTrue(matcher == JobMatcher.forConfiguration("a", "b"));
+        Assert.assertFalse(matcher == JobMatcher.forConfiguration("a", "c"));
+        Assert.assertFalse(JobMatcher.forConfiguration("a", "c").isTracked("b"));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+import org.datadog.jenkins.plugins.datadog.clients.DatadogClientStub;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class JsonWriterTest {
+
+    private static String write(Map<String, Set<String>> tags, String text, int bufferSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(out, bufferSize);
+        writer.beginObject();
+        writer.name("text").value(text);
+        writer.name("count").value(-1234567890123L);
+        writer.name("ratio").value(0.5f);
+        writer.name("nan").value(Double.NaN);
+        writer.name("ok").value(true);
+        writer.name("points").beginArray().beginArray().value(1L).value(2.0).endArray().endArray();
+        writer.name("tags").tags(tags);
+        writer.endObject();
+        writer.flush();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Map<String, Set<String>> tags = new HashMap<>();
+        tags = DatadogClientStub.addTagToMap(tags, "job", "my \"job\"");
+        tags = DatadogClientStub.addTagToMap(tags, "branch", "");
+        String text = "line1\nline2\t\\ \u0001 \u00e9\u4e2d \ud83d\ude00";
+
+        // A tiny buffer forces many flushes to the underlying stream
+        for (int bufferSize : new int[]{1, 8192}) {
+            String json = write(tags, text, bufferSize);
+            JSONObject parsed = (JSONObject) JSONSerializer.toJSON(json);
+            Assert.assertEquals(text, parsed.getString("text"));
+            Assert.assertEquals(-1234567890123L, parsed.getLong("count"));
+            Assert.assertTrue(parsed.getDouble("ratio") == 0.5);
+            Assert.assertTrue(json.contains("\"nan\":null"));
+            Assert.assertTrue(parsed.getBoolean("ok"));
+            Assert.assertTrue(json.contains("\"points\":[[1,2]]"));
+
+            JSONArray parsedTags = parsed.getJSONArray("tags");
+            Assert.assertTrue(parsedTags.size() == 2);
+            Assert.assertTrue(parsedTags.contains("job:my \"job\""));
+            Assert.assertTrue(parsedTags.contains("branch"));
+        }
+    }
+
+    @Test
+    public void testEmptyContainers() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginArray().beginObject().endObject().beginArray().endArray().tags(null).endArray();
+        writer.flush();
+        Assert.assertEquals("[{},[],[]]", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import hudson.FilePath;
+import hudson.model.Run;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class TagFileCacheTest {
+
+    @Test
+    public void testReadAndReuse() throws Exception {
+        File file = File.createTempFile("tags", ".txt");
+        try {
+            Files.write(file.toPath(), "team=ci, fork\nbranch=${GIT_BRANCH}\n".getBytes(Charset.defaultCharset()));
+            FilePath path = new FilePath(file);
+
+            TagFileCache.TagFile tagFile = TagFileCache.read("master", path);
+            Assert.assertEquals("team=ci, fork\nbranch=${GIT_BRANCH}\n", tagFile.getContent());
+            Assert.assertEquals(Arrays.asList("team=ci", "fork", "branch=${GIT_BRANCH}"), tagFile.getTags());
+
+            // Not modified, the cached file and its parsed tags are reused
+            TagFileCache.TagFile unchanged = TagFileCache.read("master", path);
+            Assert.assertTrue(unchanged == tagFile);
+            Assert.assertTrue(unchanged.getTags() == tagFile.getTags());
+
+            Files.write(file.toPath(), "team=release\n".getBytes(Charset.defaultCharset()));
+            Assert.assertTrue(file.setLastModified(tagFile.getLastModified() + 2000));
+            TagFileCache.TagFile changed = TagFileCache.read("master", path);
+            Assert.assertTrue(changed != tagFile);
+            Assert.assertEquals(Arrays.asList("team=release"), changed.getTags());
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testEvictedPerNode() throws Exception {
+        File file = File.createTempFile("tags", ".txt");
+        try {
+            Files.write(file.toPath(), "team=ci\n".getBytes(Charset.defaultCharset()));
+            FilePath path = new FilePath(file);
+
+            TagFileCache.TagFile tagFile = TagFileCache.read("agent", path);
+            Assert.assertTrue(TagFileCache.read("agent", path) == tagFile);
+            // Another node holding a file with the same path has its own entry
+            Assert.assertTrue(TagFileCache.read("other-agent", path) != tagFile);
+
+            TagFileCache.evict("agent");
+            Assert.assertTrue(TagFileCache.read("agent", path) != tagFile);
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testMissingFile() throws Exception {
+        File file = File.createTempFile("tags", ".txt");
+        Assert.assertTrue(file.delete());
+        Assert.assertNull(TagFileCache.read("master", new FilePath(file)));
+        Assert.assertNull(TagFileCache.read((Run) null, "tags.txt"));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+The MIT License
+
+Copyright (c) 2015-Present Datadog, Inc <opensource@datadoghq.com>
+All rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+
+package org.datadog.jenkins.plugins.datadog.util;
+
+import org.datadog.jenkins.plugins.datadog.clients.DatadogClientStub;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class TagSetTest {
+
+    @Test
+    public void testEncodings() {
+        Map<String, Set<String>> tags = new HashMap<>();
+        tags = DatadogClientStub.addTagToMap(tags, "node_label", "linux");
+        tags = DatadogClientStub.addTagToMap(tags, "node_label", "docker");
+        tags = DatadogClientStub.addTagToMap(tags, "fork", "");
+        TagSet tagSet = TagSet.of(tags);
+
+        Assert.assertArrayEquals(new String[]{"fork", "node_label:docker", "node_label:linux"}, tagSet.toArray());
+        Assert.assertEquals("|#fork,node_label:docker,node_label:linux", tagSet.getDogStatsDTags());
+        Assert.assertEquals("[\"fork\",\"node_label:docker\",\"node_label:linux\"]",
+                new String(tagSet.getJsonTags(), StandardCharsets.UTF_8));
+        Assert.assertTrue(tagSet.getDogStatsDTags() == tagSet.getDogStatsDTags());
+        Assert.assertTrue(tagSet.getJsonTags() == tagSet.getJsonTags());
+        Assert.assertEquals(tags, tagSet.getTagMap());
+    }
+
+    @Test
+    public void testInterning() {
+        Map<String, Set<String>> tags1 = new LinkedHashMap<>();
+        tags1 = DatadogClientStub.addTagToMap(tags1, "job", "build");
+        tags1 = DatadogClientStub.addTagToMap(tags1, "branch", "master");
+        Map<String, Set<String>> tags2 = new HashMap<>();
+        tags2 = DatadogClientStub.addTagToMap(tags2, "branch", "master");
+        tags2 = DatadogClientStub.addTagToMap(tags2, "job", "build");
+
+        TagSet tagSet = TagSet.of(tags1);
+        Assert.assertTrue(tagSet == TagSet.of(tags2));
+
+        // Changing the map the tag set was created from doesn't change the tag set
+        tags1 = DatadogClientStub.addTagToMap(tags1, "result", "SUCCESS");
+        Assert.assertTrue(tagSet.size() == 2);
+        TagSet other = TagSet.of(tags1);
+        Assert.assertFalse(tagSet.equals(other));
+        Assert.assertTrue(other.size() == 3);
+        Assert.assertTrue(tagSet == TagSet.of(tags2));
+    }
+
+    @Test
+    public void testEmpty() {
+        Assert.assertTrue(TagSet.of(null) == TagSet.EMPTY);
+        Assert.assertTrue(TagSet.of(new HashMap<String, Set<String>>()).isEmpty());
+        Assert.assertEquals("", TagSet.EMPTY.getDogStatsDTags());
+        Assert.assertEquals("[]", new String(TagSet.EMPTY.getJsonTags(), StandardCharsets.UTF_8));
+
+        Map<String, Set<String>> tags = new HashMap<>();
+        tags.put("empty", null);
+        Assert.assertTrue(TagSet.of(tags).isEmpty());
+    }
+}